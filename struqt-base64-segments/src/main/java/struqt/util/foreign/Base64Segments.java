@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util.foreign;
+
+import struqt.util.Base64;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+
+/**
+ * Base 64 encoding and decoding from one {@link MemorySegment} into another, so that payloads in
+ * native memory are processed without being copied onto the heap as a whole first.
+ *
+ * <p>The segments are processed window by window through {@code asSlice(...).asByteBuffer()}
+ * views, which run on the byte buffer kernels of {@link Base64} in place: views of heap segments
+ * go on the byte array kernels, and views of native segments are read and written directly. No
+ * byte is staged, and segments larger than 2 GiB are fine.
+ *
+ * <p>This class needs Java 22 and is shipped in its own artifact, {@code struqt-base64-segments},
+ * which only uses the public API of {@link Base64}.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+public final class Base64Segments {
+
+  /* Input bytes of an encode window, whole MIME lines so that windows end at line boundaries */
+  private static final int ENCODE_WINDOW = Base64.MIME_LINE_LENGTH / 4 * 3 << 12;
+
+  /* Input bytes of a decode window */
+  private static final int DECODE_WINDOW = 1 << 18;
+
+  private Base64Segments() {}
+
+  /**
+   * Calculates the exact number of bytes that {@link #encode} writes for {@code len} input bytes.
+   *
+   * @param len Count of input bytes
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return Count of encoded bytes
+   * @exception IllegalArgumentException If {@code len} is negative
+   */
+  public static long encodedLength(
+      final long len, final boolean url, final boolean mime, final boolean padding) {
+    if (len < 0) {
+      throw new IllegalArgumentException("The len argument is negative");
+    }
+    long count = len / 3 * 4;
+    int remains = (int) (len % 3);
+    if (remains > 0) {
+      count += padding ? 4 : remains + 1;
+    }
+    if (!url && mime && count > 0) {
+      count += (count - 1) / Base64.MIME_LINE_LENGTH * 2;
+    }
+    return count;
+  }
+
+  /**
+   * Generate Base 64 encoding of the whole {@code src} segment as ASCII bytes at the start of the
+   * {@code dst} segment, as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> or <a
+   * href="https://tools.ietf.org/html/rfc2045#section-6.8">RFC 2045</a>.
+   *
+   * @param src Segment of input bytes
+   * @param dst Segment where the encoded ASCII bytes are written to
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If {@code dst} is too small, in which case it is not
+   *     modified
+   */
+  public static long encode(
+      final MemorySegment src,
+      final MemorySegment dst,
+      final boolean url,
+      final boolean mime,
+      final boolean padding) {
+    final long size = src.byteSize();
+    final long total = encodedLength(size, url, mime, padding);
+    if (total > dst.byteSize()) {
+      throw new IllegalArgumentException(
+          "The destination segment needs " + total + " bytes but only has " + dst.byteSize());
+    }
+    final boolean wrap = !url && mime;
+    long s = 0;
+    long d = 0;
+    while (s < size) {
+      final int n = (int) Math.min(ENCODE_WINDOW, size - s);
+      final ByteBuffer input = src.asSlice(s, n).asByteBuffer();
+      final ByteBuffer output = dst.asSlice(d, encodedLength(n, url, mime, padding)).asByteBuffer();
+      d += Base64.encode(input, output, url, mime, padding);
+      s += n;
+      /* Every window but the last one ends a line, so it is followed by a line separator */
+      if (wrap && s < size) {
+        dst.set(ValueLayout.JAVA_BYTE, d++, (byte) '\r');
+        dst.set(ValueLayout.JAVA_BYTE, d++, (byte) '\n');
+      }
+    }
+    return d;
+  }
+
+  /**
+   * Parse the whole {@code src} segment of Base 64 encoded ASCII bytes into the start of the
+   * {@code dst} segment. Both alphabets are accepted and line separators are ignored, as {@link
+   * Base64#decode(byte[])} does.
+   *
+   * @param src Segment of Base 64 encoded ASCII bytes
+   * @param dst Segment where the decoded bytes are written to
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If {@code src} is not well formed Base 64 or {@code dst}
+   *     is too small, in which case the bytes of {@code dst} are unspecified
+   */
+  public static long decode(final MemorySegment src, final MemorySegment dst) {
+    final long size = src.byteSize();
+    final Base64.IncrementalDecoder decoder = new Base64.IncrementalDecoder();
+    long s = 0;
+    long d = 0;
+    while (s < size) {
+      final int n = (int) Math.min(DECODE_WINDOW, size - s);
+      final ByteBuffer input = src.asSlice(s, n).asByteBuffer();
+      /* Room for the window and the sextets carried from the previous one */
+      final long room = Math.min(dst.byteSize() - d, n / 4 * 3 + 3);
+      d += decoder.update(input, dst.asSlice(d, room).asByteBuffer());
+      if (input.hasRemaining()) {
+        throw new IllegalArgumentException("Not enough space in the destination segment");
+      }
+      s += n;
+    }
+    decoder.finish();
+    return d;
+  }
+}
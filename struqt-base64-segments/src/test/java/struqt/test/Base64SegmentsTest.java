@@ -0,0 +1,111 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.foreign.Base64Segments;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 64 Segments Test")
+class Base64SegmentsTest {
+
+  private static final Random random = new SecureRandom();
+
+  /* Lengths around the 228 KiB encode windows and the 256 KiB decode windows as well */
+  @ParameterizedTest
+  @ValueSource(
+      ints = {0, 1, 2, 3, 56, 57, 58, 1000, 196607, 196608, 233471, 233472, 233473, 600000})
+  protected void transcode(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    transcode(bytes, java.util.Base64.getEncoder().encode(bytes), false, false, true);
+    byte[] url = java.util.Base64.getUrlEncoder().withoutPadding().encode(bytes);
+    transcode(bytes, url, true, false, false);
+    transcode(bytes, java.util.Base64.getMimeEncoder().encode(bytes), false, true, true);
+  }
+
+  @Test
+  protected void decodeInvalid() {
+    byte[] input = new byte[400000];
+    Arrays.fill(input, (byte) 'A');
+    input[300000] = 1;
+    try (Arena arena = Arena.ofConfined()) {
+      MemorySegment src = arena.allocate(input.length);
+      MemorySegment.copy(input, 0, src, ValueLayout.JAVA_BYTE, 0, input.length);
+      IllegalArgumentException e =
+          assertThrows(
+              IllegalArgumentException.class,
+              () -> Base64Segments.decode(src, arena.allocate(input.length)));
+      assertEquals("Invalid base64 character '1' at position 300001", e.getMessage());
+      byte[] odd = "QUJDR".getBytes(StandardCharsets.US_ASCII);
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> Base64Segments.decode(MemorySegment.ofArray(odd), arena.allocate(8)));
+      byte[] abc = "QUJD".getBytes(StandardCharsets.US_ASCII);
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> Base64Segments.decode(MemorySegment.ofArray(abc), arena.allocate(2)));
+      byte[] padded = "QUJDRA==\r\n".getBytes(StandardCharsets.US_ASCII);
+      MemorySegment exact = arena.allocate(4);
+      assertEquals(4, Base64Segments.decode(MemorySegment.ofArray(padded).asReadOnly(), exact));
+      byte[] abcd = exact.toArray(ValueLayout.JAVA_BYTE);
+      assertEquals("ABCD", new String(abcd, StandardCharsets.US_ASCII));
+    }
+  }
+
+  @Test
+  protected void encodeTooSmall() {
+    MemorySegment src = MemorySegment.ofArray(new byte[3]);
+    byte[] dst = new byte[3];
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Base64Segments.encode(src, MemorySegment.ofArray(dst), false, false, true));
+    assertArrayEquals(new byte[3], dst);
+    assertThrows(
+        IllegalArgumentException.class, () -> Base64Segments.encodedLength(-1, false, false, true));
+  }
+
+  /* Every combination of heap, offset heap and native segments on both sides */
+  private static void transcode(
+      byte[] bytes, byte[] encoded, boolean url, boolean mime, boolean padding) {
+    assertEquals(encoded.length, Base64Segments.encodedLength(bytes.length, url, mime, padding));
+    try (Arena arena = Arena.ofConfined()) {
+      for (int kind = 0; kind < 9; kind++) {
+        MemorySegment src = segment(arena, bytes, kind / 3);
+        MemorySegment dst = segment(arena, new byte[encoded.length], kind % 3);
+        assertEquals(encoded.length, Base64Segments.encode(src, dst, url, mime, padding));
+        assertArrayEquals(encoded, dst.toArray(ValueLayout.JAVA_BYTE));
+        MemorySegment decoded = segment(arena, new byte[bytes.length], kind % 3);
+        assertEquals(bytes.length, Base64Segments.decode(dst.asReadOnly(), decoded));
+        assertArrayEquals(bytes, decoded.toArray(ValueLayout.JAVA_BYTE));
+      }
+    }
+  }
+
+  private static MemorySegment segment(Arena arena, byte[] content, int kind) {
+    switch (kind) {
+      case 0:
+        return MemorySegment.ofArray(content.clone());
+      case 1:
+        byte[] padded = new byte[content.length + 7];
+        System.arraycopy(content, 0, padded, 3, content.length);
+        return MemorySegment.ofArray(padded).asSlice(3, content.length);
+      default:
+        MemorySegment segment = arena.allocate(Math.max(1, content.length));
+        MemorySegment.copy(content, 0, segment, ValueLayout.JAVA_BYTE, 0, content.length);
+        return segment.asSlice(0, content.length);
+    }
+  }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Base 16 (hexadecimal) encode and decode implementation as <a
+ * href="https://tools.ietf.org/html/rfc4648#section-8">RFC 4648</a> specified.
+ *
+ * <p>Encoding writes lower case digits unless upper case is asked for. Decoding accepts both cases
+ * and nothing else, so white spaces and separators are rejected.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+public abstract class Base16 {
+
+  private static final byte[] EMPTY_BYTES = new byte[0];
+  private static final char[] EMPTY_CHARS = new char[0];
+  private static final char[] ALPHABET_LOWER = {
+    '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+  };
+  private static final char[] ALPHABET_UPPER = {
+    '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+  };
+  private static final int[] DECODE_MAP = Radix.decodeMap(ALPHABET_UPPER, true);
+  private static final char[] PAIRS_LOWER = Radix.pairs(ALPHABET_LOWER, 4);
+  private static final char[] PAIRS_UPPER = Radix.pairs(ALPHABET_UPPER, 4);
+
+  /**
+   * Generate lower case Base 16 encoding.
+   *
+   * @param bytes Byte array as input
+   * @return Base16 encoded String as output
+   */
+  public static String encodeToString(final byte[] bytes) {
+    return encodeToString(bytes, false);
+  }
+
+  /**
+   * Generate Base 16 encoding.
+   *
+   * @param bytes Byte array as input
+   * @param upper Use upper case digits or not
+   * @return Base16 encoded String as output
+   */
+  public static String encodeToString(final byte[] bytes, final boolean upper) {
+    if (bytes == null || bytes.length <= 0) {
+      return "";
+    }
+    final byte[] ascii = new byte[bytes.length << 1];
+    encode(bytes, 0, bytes.length, ascii, 0, pairsOf(upper));
+    return Radix.ascii(ascii);
+  }
+
+  /**
+   * Generate Base 16 encoding.
+   *
+   * @param bytes Byte array as input
+   * @param upper Use upper case digits or not
+   * @return Base16 encoded char array as output
+   */
+  public static char[] encode(final byte[] bytes, final boolean upper) {
+    if (bytes == null || bytes.length <= 0) {
+      return EMPTY_CHARS;
+    }
+    final char[] chars = new char[bytes.length << 1];
+    encode(bytes, 0, bytes.length, chars, 0, pairsOf(upper));
+    return chars;
+  }
+
+  /**
+   * Generate Base 16 encoding into a caller-supplied byte array as ASCII bytes.
+   *
+   * @param src Byte array as input
+   * @param srcOff Starting position in the {@code src} byte array
+   * @param len Number of bytes to be encoded
+   * @param dst Byte array where the encoded ASCII bytes are written to
+   * @param dstOff Starting position in the {@code dst} byte array
+   * @param upper Use upper case digits or not
+   * @return The number of bytes written to {@code dst}, which is {@code 2 * len}
+   * @exception IllegalArgumentException If a range is outside the bounds of its array
+   */
+  public static int encode(
+      final byte[] src,
+      final int srcOff,
+      final int len,
+      final byte[] dst,
+      final int dstOff,
+      final boolean upper) {
+    Radix.checkRange(src.length, srcOff, len, "source");
+    final int count = encodedLength(len);
+    Radix.checkRange(dst.length, dstOff, count, "destination");
+    encode(src, srcOff, len, dst, dstOff, pairsOf(upper));
+    return count;
+  }
+
+  /**
+   * Generate Base 16 encoding into a caller-supplied char array.
+   *
+   * @param src Byte array as input
+   * @param srcOff Starting position in the {@code src} byte array
+   * @param len Number of bytes to be encoded
+   * @param dst Char array where the encoded characters are written to
+   * @param dstOff Starting position in the {@code dst} char array
+   * @param upper Use upper case digits or not
+   * @return The number of chars written to {@code dst}, which is {@code 2 * len}
+   * @exception IllegalArgumentException If a range is outside the bounds of its array
+   */
+  public static int encode(
+      final byte[] src,
+      final int srcOff,
+      final int len,
+      final char[] dst,
+      final int dstOff,
+      final boolean upper) {
+    Radix.checkRange(src.length, srcOff, len, "source");
+    final int count = encodedLength(len);
+    Radix.checkRange(dst.length, dstOff, count, "destination");
+    encode(src, srcOff, len, dst, dstOff, pairsOf(upper));
+    return count;
+  }
+
+  /**
+   * Generate Base 16 encoding of all remaining bytes of {@code src} into {@code dst} as ASCII
+   * bytes. Both buffers may be heap or direct buffers, and their positions are advanced by the
+   * number of bytes read and written. Nothing is allocated.
+   *
+   * @param src Byte buffer as input
+   * @param dst Byte buffer where the encoded ASCII bytes are written to
+   * @param upper Use upper case digits or not
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If {@code dst} has not enough remaining space, in which
+   *     case neither buffer is modified
+   */
+  public static int encode(final ByteBuffer src, final ByteBuffer dst, final boolean upper) {
+    final int len = src.remaining();
+    final int count = encodedLength(len);
+    if (count > dst.remaining()) {
+      throw new IllegalArgumentException(
+          "The destination buffer needs " + count + " bytes but only " + dst.remaining() + " left");
+    }
+    final int srcPos = src.position();
+    final int dstPos = dst.position();
+    final char[] pairs = pairsOf(upper);
+    if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+      encode(
+          src.array(),
+          src.arrayOffset() + srcPos,
+          len,
+          dst.array(),
+          dst.arrayOffset() + dstPos,
+          pairs);
+    } else {
+      for (int i = 0; i < len; i++) {
+        final int pair = pairs[0xFF & src.get(srcPos + i)];
+        dst.put(dstPos + (i << 1), (byte) (pair >>> 8));
+        dst.put(dstPos + (i << 1) + 1, (byte) pair);
+      }
+    }
+    ((Buffer) src).position(srcPos + len);
+    ((Buffer) dst).position(dstPos + count);
+    return count;
+  }
+
+  /**
+   * Calculates how many characters are produced when encoding {@code len} bytes.
+   *
+   * @param len Number of bytes to be encoded
+   * @return The exact length of the encoded output
+   * @exception IllegalArgumentException If {@code len} is negative or the result is too large
+   */
+  public static int encodedLength(final int len) {
+    if (len < 0) {
+      throw new IllegalArgumentException("The len argument is negative");
+    }
+    if (len > Integer.MAX_VALUE >>> 1) {
+      throw new IllegalArgumentException("Input is too large to be encoded as Base16");
+    }
+    return len << 1;
+  }
+
+  /**
+   * Parse Base 16 encoded String to byte array.
+   *
+   * @param s Base 16 encoded String
+   * @return Byte array as output
+   * @exception IllegalArgumentException If the input is not well formed Base 16
+   */
+  public static byte[] decode(final CharSequence s) {
+    if (s == null || s.length() <= 0) {
+      return EMPTY_BYTES;
+    }
+    final byte[] result = new byte[decodedLength(s.length())];
+    final int[] map = DECODE_MAP;
+    for (int i = 0, d = 0; d < result.length; i += 2, d++) {
+      final char c0 = s.charAt(i);
+      final char c1 = s.charAt(i + 1);
+      final int hi = c0 >>> 8 == 0 ? map[c0] : Radix.INVALID;
+      final int lo = c1 >>> 8 == 0 ? map[c1] : Radix.INVALID;
+      if ((hi | lo) < 0) {
+        throw invalid(hi < 0 ? c0 : c1, hi < 0 ? i : i + 1);
+      }
+      result[d] = (byte) (hi << 4 | lo);
+    }
+    return result;
+  }
+
+  /**
+   * Parse Base 16 encoded char array to byte array.
+   *
+   * @param chars Base 16 encoded char array
+   * @return Byte array as output
+   * @exception IllegalArgumentException If the input is not well formed Base 16
+   */
+  public static byte[] decode(final char[] chars) {
+    if (chars == null || chars.length <= 0) {
+      return EMPTY_BYTES;
+    }
+    final byte[] result = new byte[decodedLength(chars.length)];
+    decode(chars, 0, chars.length, result, 0);
+    return result;
+  }
+
+  /**
+   * Parse Base 16 encoded bytes to byte array.
+   *
+   * @param bytes Base 16 encoded ASCII bytes
+   * @return Byte array as output
+   * @exception IllegalArgumentException If the input is not well formed Base 16
+   */
+  public static byte[] decode(final byte[] bytes) {
+    if (bytes == null || bytes.length <= 0) {
+      return EMPTY_BYTES;
+    }
+    final byte[] result = new byte[decodedLength(bytes.length)];
+    decode(bytes, 0, bytes.length, result, 0);
+    return result;
+  }
+
+  /**
+   * Parse {@code len} Base 16 encoded bytes of {@code src} from {@code srcOff} into a
+   * caller-supplied byte array.
+   *
+   * @param src Byte array of Base 16 encoded ASCII bytes
+   * @param srcOff Index of the first encoded byte
+   * @param len Count of encoded bytes
+   * @param dst Byte array where the decoded bytes are written to
+   * @param dstOff Index where the first decoded byte is written to
+   * @return The number of bytes written to {@code dst}, which is {@code len / 2}
+   * @exception IllegalArgumentException If a range is out of bounds or the input is not well
+   *     formed Base 16
+   */
+  public static int decode(
+      final byte[] src, final int srcOff, final int len, final byte[] dst, final int dstOff) {
+    Radix.checkRange(src.length, srcOff, len, "source");
+    final int count = decodedLength(len);
+    Radix.checkRange(dst.length, dstOff, count, "destination");
+    final int[] map = DECODE_MAP;
+    final int end = srcOff + (count << 1);
+    int s = srcOff;
+    int d = dstOff;
+    /* Four digit pairs per step with one combined validity check */
+    while (end - s >= 8) {
+      final int a0 = map[0xFF & src[s]];
+      final int a1 = map[0xFF & src[s + 1]];
+      final int a2 = map[0xFF & src[s + 2]];
+      final int a3 = map[0xFF & src[s + 3]];
+      final int a4 = map[0xFF & src[s + 4]];
+      final int a5 = map[0xFF & src[s + 5]];
+      final int a6 = map[0xFF & src[s + 6]];
+      final int a7 = map[0xFF & src[s + 7]];
+      if ((a0 | a1 | a2 | a3 | a4 | a5 | a6 | a7) < 0) {
+        break;
+      }
+      dst[d] = (byte) (a0 << 4 | a1);
+      dst[d + 1] = (byte) (a2 << 4 | a3);
+      dst[d + 2] = (byte) (a4 << 4 | a5);
+      dst[d + 3] = (byte) (a6 << 4 | a7);
+      s += 8;
+      d += 4;
+    }
+    for (; s < end; s += 2, d++) {
+      final int hi = map[0xFF & src[s]];
+      final int lo = map[0xFF & src[s + 1]];
+      if ((hi | lo) < 0) {
+        throw invalid(0xFF & src[hi < 0 ? s : s + 1], (hi < 0 ? s : s + 1) - srcOff);
+      }
+      dst[d] = (byte) (hi << 4 | lo);
+    }
+    return count;
+  }
+
+  /**
+   * Parse Base 16 encoded ASCII bytes from a byte buffer into another byte buffer.
+   *
+   * <p>All remaining bytes of {@code src} are decoded into {@code dst}. Both buffers may be heap or
+   * direct buffers, and their positions are advanced by the number of bytes read and written.
+   * Nothing is allocated.
+   *
+   * @param src Byte buffer of Base 16 encoded ASCII bytes
+   * @param dst Byte buffer where the decoded bytes are written to
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If {@code src} is not well formed Base 16 or {@code dst}
+   *     has not enough remaining space, in which case neither buffer position is changed
+   */
+  public static int decode(final ByteBuffer src, final ByteBuffer dst) {
+    final int len = src.remaining();
+    final int count = decodedLength(len);
+    if (count > dst.remaining()) {
+      throw new IllegalArgumentException(
+          "The destination buffer needs " + count + " bytes but only " + dst.remaining() + " left");
+    }
+    final int srcPos = src.position();
+    final int dstPos = dst.position();
+    if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+      decode(src.array(), src.arrayOffset() + srcPos, len, dst.array(), dst.arrayOffset() + dstPos);
+    } else {
+      final int[] map = DECODE_MAP;
+      for (int i = 0; i < count; i++) {
+        final int c0 = 0xFF & src.get(srcPos + (i << 1));
+        final int c1 = 0xFF & src.get(srcPos + (i << 1) + 1);
+        final int hi = map[c0];
+        final int lo = map[c1];
+        if ((hi | lo) < 0) {
+          throw invalid(hi < 0 ? c0 : c1, hi < 0 ? i << 1 : (i << 1) + 1);
+        }
+        dst.put(dstPos + i, (byte) (hi << 4 | lo));
+      }
+    }
+    ((Buffer) src).position(srcPos + len);
+    ((Buffer) dst).position(dstPos + count);
+    return count;
+  }
+
+  private static char[] pairsOf(final boolean upper) {
+    return upper ? PAIRS_UPPER : PAIRS_LOWER;
+  }
+
+  private static int decodedLength(final int len) {
+    if ((len & 1) != 0) {
+      throw new IllegalArgumentException("Illegal base16 length " + len + ", which is odd");
+    }
+    return len >>> 1;
+  }
+
+  private static IllegalArgumentException invalid(final int ch, final int index) {
+    return new IllegalArgumentException(
+        "Invalid base16 character '" + ch + "' at position " + (index + 1));
+  }
+
+  private static void encode(
+      final byte[] src,
+      final int srcOff,
+      final int len,
+      final byte[] dst,
+      final int dstOff,
+      final char[] pairs) {
+    final int end = srcOff + len;
+    int s = srcOff;
+    int d = dstOff;
+    while (end - s >= 4) {
+      final int p0 = pairs[0xFF & src[s]];
+      final int p1 = pairs[0xFF & src[s + 1]];
+      final int p2 = pairs[0xFF & src[s + 2]];
+      final int p3 = pairs[0xFF & src[s + 3]];
+      dst[d] = (byte) (p0 >>> 8);
+      dst[d + 1] = (byte) p0;
+      dst[d + 2] = (byte) (p1 >>> 8);
+      dst[d + 3] = (byte) p1;
+      dst[d + 4] = (byte) (p2 >>> 8);
+      dst[d + 5] = (byte) p2;
+      dst[d + 6] = (byte) (p3 >>> 8);
+      dst[d + 7] = (byte) p3;
+      s += 4;
+      d += 8;
+    }
+    for (; s < end; s++, d += 2) {
+      final int pair = pairs[0xFF & src[s]];
+      dst[d] = (byte) (pair >>> 8);
+      dst[d + 1] = (byte) pair;
+    }
+  }
+
+  private static void encode(
+      final byte[] src,
+      final int srcOff,
+      final int len,
+      final char[] dst,
+      final int dstOff,
+      final char[] pairs) {
+    final int end = srcOff + len;
+    for (int s = srcOff, d = dstOff; s < end; s++, d += 2) {
+      final int pair = pairs[0xFF & src[s]];
+      dst[d] = (char) (pair >>> 8);
+      dst[d + 1] = (char) (0xFF & pair);
+    }
+  }
+
+  private static void decode(
+      final char[] src, final int srcOff, final int len, final byte[] dst, final int dstOff) {
+    final int[] map = DECODE_MAP;
+    final int end = srcOff + len;
+    int s = srcOff;
+    int d = dstOff;
+    while (end - s >= 8) {
+      final char c0 = src[s];
+      final char c1 = src[s + 1];
+      final char c2 = src[s + 2];
+      final char c3 = src[s + 3];
+      final char c4 = src[s + 4];
+      final char c5 = src[s + 5];
+      final char c6 = src[s + 6];
+      final char c7 = src[s + 7];
+      if ((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) >>> 8 != 0) {
+        break;
+      }
+      final int a0 = map[c0];
+      final int a1 = map[c1];
+      final int a2 = map[c2];
+      final int a3 = map[c3];
+      final int a4 = map[c4];
+      final int a5 = map[c5];
+      final int a6 = map[c6];
+      final int a7 = map[c7];
+      if ((a0 | a1 | a2 | a3 | a4 | a5 | a6 | a7) < 0) {
+        break;
+      }
+      dst[d] = (byte) (a0 << 4 | a1);
+      dst[d + 1] = (byte) (a2 << 4 | a3);
+      dst[d + 2] = (byte) (a4 << 4 | a5);
+      dst[d + 3] = (byte) (a6 << 4 | a7);
+      s += 8;
+      d += 4;
+    }
+    for (; s < end; s += 2, d++) {
+      final char c0 = src[s];
+      final char c1 = src[s + 1];
+      final int hi = c0 >>> 8 == 0 ? map[c0] : Radix.INVALID;
+      final int lo = c1 >>> 8 == 0 ? map[c1] : Radix.INVALID;
+      if ((hi | lo) < 0) {
+        throw invalid(hi < 0 ? c0 : c1, (hi < 0 ? s : s + 1) - srcOff);
+      }
+      dst[d] = (byte) (hi << 4 | lo);
+    }
+  }
+}
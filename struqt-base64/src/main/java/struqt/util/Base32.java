@@ -0,0 +1,887 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Base 32 encode and decode implementation of the alphabets <a
+ * href="https://tools.ietf.org/html/rfc4648#section-6">RFC 4648</a> specified, {@code base32} and
+ * {@code base32hex}, and of the <a href="https://www.crockford.com/base32.html">Crockford</a>
+ * alphabet.
+ *
+ * <p>Every 5 input bytes become 8 characters. The encoders write two characters per table load
+ * from a 10-bit pair table, and the decoders parse 8 characters per step with a single validity
+ * check, as the Base 64 kernels do.
+ *
+ * <p>Decoding accepts both cases, and the padding is optional. The Crockford decoder also reads
+ * {@code O} as {@code 0}, {@code I} and {@code L} as {@code 1}, and ignores hyphens; check symbols
+ * are not supported.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+public abstract class Base32 {
+
+  private static final byte[] EMPTY_BYTES = new byte[0];
+  private static final char ALPHABET_PAD = '=';
+  private static final char[] ALPHABET_BASIC = {
+    'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P',
+    'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '2', '3', '4', '5', '6', '7'
+  };
+  private static final char[] ALPHABET_HEX = {
+    '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F',
+    'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V'
+  };
+  private static final char[] ALPHABET_CROCKFORD = {
+    '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F',
+    'G', 'H', 'J', 'K', 'M', 'N', 'P', 'Q', 'R', 'S', 'T', 'V', 'W', 'X', 'Y', 'Z'
+  };
+
+  /**
+   * Generate Base 32 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-6">RFC 4648</a>, with padding.
+   *
+   * @param bytes Byte array as input
+   * @return Base32 encoded String as output
+   */
+  public static String encodeToString(final byte[] bytes) {
+    return Encoder.BASIC.encodeToString(bytes);
+  }
+
+  /**
+   * Parse Base 32 encoded String of the <a
+   * href="https://tools.ietf.org/html/rfc4648#section-6">RFC 4648</a> alphabet to byte array.
+   *
+   * @param s Base 32 encoded String
+   * @return Byte array as output
+   * @exception IllegalArgumentException If the input is not well formed Base 32
+   */
+  public static byte[] decode(final CharSequence s) {
+    return Decoder.BASIC.decode(s);
+  }
+
+  /**
+   * Returns the shared encoder of the <a href="https://tools.ietf.org/html/rfc4648#section-6">RFC
+   * 4648</a> {@code base32} alphabet, with padding.
+   *
+   * @return Shared {@link Encoder} instance
+   */
+  public static Encoder encoder() {
+    return Encoder.BASIC;
+  }
+
+  /**
+   * Returns the shared encoder of the <a href="https://tools.ietf.org/html/rfc4648#section-7">RFC
+   * 4648</a> {@code base32hex} alphabet, with padding. Its output sorts like the input bytes.
+   *
+   * @return Shared {@link Encoder} instance
+   */
+  public static Encoder hexEncoder() {
+    return Encoder.HEX;
+  }
+
+  /**
+   * Returns the shared encoder of the Crockford alphabet, without padding.
+   *
+   * @return Shared {@link Encoder} instance
+   */
+  public static Encoder crockfordEncoder() {
+    return Encoder.CROCKFORD;
+  }
+
+  /**
+   * Returns the shared decoder of the <a href="https://tools.ietf.org/html/rfc4648#section-6">RFC
+   * 4648</a> {@code base32} alphabet.
+   *
+   * @return Shared {@link Decoder} instance
+   */
+  public static Decoder decoder() {
+    return Decoder.BASIC;
+  }
+
+  /**
+   * Returns the shared decoder of the <a href="https://tools.ietf.org/html/rfc4648#section-7">RFC
+   * 4648</a> {@code base32hex} alphabet.
+   *
+   * @return Shared {@link Decoder} instance
+   */
+  public static Decoder hexDecoder() {
+    return Decoder.HEX;
+  }
+
+  /**
+   * Returns the shared decoder of the Crockford alphabet.
+   *
+   * @return Shared {@link Decoder} instance
+   */
+  public static Decoder crockfordDecoder() {
+    return Decoder.CROCKFORD;
+  }
+
+  private static int encodedLength(int len, boolean padding) {
+    long count = (len / 5) * 8L;
+    int remains = len % 5;
+    if (remains > 0) {
+      count += padding ? 8 : (remains * 8 + 4) / 5;
+    }
+    if (count > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Input is too large to be encoded as Base32");
+    }
+    return (int) count;
+  }
+
+  /* Returns the count of bytes of a final group of n characters */
+  private static int tailLength(int n) {
+    if (n == 1 || n == 3 || n == 6) {
+      throw new IllegalArgumentException("Illegal base32 length, " + n + " characters left over");
+    }
+    return n * 5 >>> 3;
+  }
+
+  private static IllegalArgumentException invalid(final int ch, final int index) {
+    return new IllegalArgumentException(
+        "Invalid base32 character '" + ch + "' at position " + (index + 1));
+  }
+
+  private static void encode(
+      byte[] src,
+      int srcOff,
+      int len,
+      byte[] dst,
+      int dstOff,
+      char[] alphabet,
+      char[] pairs,
+      boolean padding) {
+    final int end = srcOff + len;
+    int s = srcOff;
+    int d = dstOff;
+    while (end - s >= 5) {
+      final long bits =
+          (0xFFL & src[s]) << 32
+              | (0xFFL & src[s + 1]) << 24
+              | (0xFF & src[s + 2]) << 16
+              | (0xFF & src[s + 3]) << 8
+              | (0xFF & src[s + 4]);
+      final int p0 = pairs[(int) (bits >>> 30)];
+      final int p1 = pairs[0x3FF & (int) (bits >>> 20)];
+      final int p2 = pairs[0x3FF & (int) (bits >>> 10)];
+      final int p3 = pairs[0x3FF & (int) bits];
+      dst[d] = (byte) (p0 >>> 8);
+      dst[d + 1] = (byte) p0;
+      dst[d + 2] = (byte) (p1 >>> 8);
+      dst[d + 3] = (byte) p1;
+      dst[d + 4] = (byte) (p2 >>> 8);
+      dst[d + 5] = (byte) p2;
+      dst[d + 6] = (byte) (p3 >>> 8);
+      dst[d + 7] = (byte) p3;
+      s += 5;
+      d += 8;
+    }
+    final int remains = end - s;
+    if (remains > 0) {
+      long bits = 0L;
+      for (int i = 0; i < remains; i++) {
+        bits |= (0xFFL & src[s + i]) << (32 - (i << 3));
+      }
+      final int chars = (remains * 8 + 4) / 5;
+      for (int i = 0; i < chars; i++) {
+        dst[d++] = (byte) alphabet[0x1F & (int) (bits >>> (35 - 5 * i))];
+      }
+      for (int i = chars; padding && i < 8; i++) {
+        dst[d++] = (byte) ALPHABET_PAD;
+      }
+    }
+  }
+
+  private static void encode(
+      byte[] src,
+      int srcOff,
+      int len,
+      char[] dst,
+      int dstOff,
+      char[] alphabet,
+      char[] pairs,
+      boolean padding) {
+    final int end = srcOff + len;
+    int s = srcOff;
+    int d = dstOff;
+    while (end - s >= 5) {
+      final long bits =
+          (0xFFL & src[s]) << 32
+              | (0xFFL & src[s + 1]) << 24
+              | (0xFF & src[s + 2]) << 16
+              | (0xFF & src[s + 3]) << 8
+              | (0xFF & src[s + 4]);
+      final int p0 = pairs[(int) (bits >>> 30)];
+      final int p1 = pairs[0x3FF & (int) (bits >>> 20)];
+      final int p2 = pairs[0x3FF & (int) (bits >>> 10)];
+      final int p3 = pairs[0x3FF & (int) bits];
+      dst[d] = (char) (p0 >>> 8);
+      dst[d + 1] = (char) (0xFF & p0);
+      dst[d + 2] = (char) (p1 >>> 8);
+      dst[d + 3] = (char) (0xFF & p1);
+      dst[d + 4] = (char) (p2 >>> 8);
+      dst[d + 5] = (char) (0xFF & p2);
+      dst[d + 6] = (char) (p3 >>> 8);
+      dst[d + 7] = (char) (0xFF & p3);
+      s += 5;
+      d += 8;
+    }
+    final int remains = end - s;
+    if (remains > 0) {
+      long bits = 0L;
+      for (int i = 0; i < remains; i++) {
+        bits |= (0xFFL & src[s + i]) << (32 - (i << 3));
+      }
+      final int chars = (remains * 8 + 4) / 5;
+      for (int i = 0; i < chars; i++) {
+        dst[d++] = alphabet[0x1F & (int) (bits >>> (35 - 5 * i))];
+      }
+      for (int i = chars; padding && i < 8; i++) {
+        dst[d++] = ALPHABET_PAD;
+      }
+    }
+  }
+
+  private static void encode(
+      ByteBuffer src,
+      int srcOff,
+      int len,
+      ByteBuffer dst,
+      int dstOff,
+      char[] alphabet,
+      boolean padding) {
+    final int end = srcOff + len;
+    int d = dstOff;
+    for (int s = srcOff; s < end; s += 5) {
+      final int n = Math.min(5, end - s);
+      long bits = 0L;
+      for (int i = 0; i < n; i++) {
+        bits |= (0xFFL & src.get(s + i)) << (32 - (i << 3));
+      }
+      final int chars = (n * 8 + 4) / 5;
+      for (int i = 0; i < chars; i++) {
+        dst.put(d++, (byte) alphabet[0x1F & (int) (bits >>> (35 - 5 * i))]);
+      }
+      for (int i = chars; padding && i < 8; i++) {
+        dst.put(d++, (byte) ALPHABET_PAD);
+      }
+    }
+  }
+
+  /* Returns the index after the last byte written to dst */
+  private static int decode(
+      final byte[] src,
+      final int from,
+      final int to,
+      final byte[] dst,
+      final int dstOff,
+      final int[] map) {
+    int i = from;
+    int d = dstOff;
+    int n = 0;
+    long bits = 0L;
+    while (i < to) {
+      if (n == 0) {
+        /* Eight characters per step, with one check for all of them */
+        while (to - i >= 8) {
+          final int a0 = map[0xFF & src[i]];
+          final int a1 = map[0xFF & src[i + 1]];
+          final int a2 = map[0xFF & src[i + 2]];
+          final int a3 = map[0xFF & src[i + 3]];
+          final int a4 = map[0xFF & src[i + 4]];
+          final int a5 = map[0xFF & src[i + 5]];
+          final int a6 = map[0xFF & src[i + 6]];
+          final int a7 = map[0xFF & src[i + 7]];
+          if ((a0 | a1 | a2 | a3 | a4 | a5 | a6 | a7) < 0) {
+            break;
+          }
+          final long group =
+              (long) a0 << 35
+                  | (long) a1 << 30
+                  | a2 << 25
+                  | a3 << 20
+                  | a4 << 15
+                  | a5 << 10
+                  | a6 << 5
+                  | a7;
+          dst[d] = (byte) (group >>> 32);
+          dst[d + 1] = (byte) (group >>> 24);
+          dst[d + 2] = (byte) (group >>> 16);
+          dst[d + 3] = (byte) (group >>> 8);
+          dst[d + 4] = (byte) group;
+          i += 8;
+          d += 5;
+        }
+        if (i >= to) {
+          break;
+        }
+      }
+      final int ch = 0xFF & src[i];
+      final int v = map[ch];
+      if (v >= 0) {
+        bits = bits << 5 | v;
+        if (++n == 8) {
+          d = put(dst, d, bits, 5);
+          n = 0;
+          bits = 0L;
+        }
+      } else if (v != Radix.SKIP) {
+        throw invalid(ch, i - from);
+      }
+      i++;
+    }
+    return n == 0 ? d : put(dst, d, bits >>> (n * 5 & 7), tailLength(n));
+  }
+
+  private static int decode(
+      final char[] src,
+      final int from,
+      final int to,
+      final byte[] dst,
+      final int dstOff,
+      final int[] map) {
+    int i = from;
+    int d = dstOff;
+    int n = 0;
+    long bits = 0L;
+    while (i < to) {
+      if (n == 0) {
+        while (to - i >= 8) {
+          final char c0 = src[i];
+          final char c1 = src[i + 1];
+          final char c2 = src[i + 2];
+          final char c3 = src[i + 3];
+          final char c4 = src[i + 4];
+          final char c5 = src[i + 5];
+          final char c6 = src[i + 6];
+          final char c7 = src[i + 7];
+          if ((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) >>> 8 != 0) {
+            break;
+          }
+          final int a0 = map[c0];
+          final int a1 = map[c1];
+          final int a2 = map[c2];
+          final int a3 = map[c3];
+          final int a4 = map[c4];
+          final int a5 = map[c5];
+          final int a6 = map[c6];
+          final int a7 = map[c7];
+          if ((a0 | a1 | a2 | a3 | a4 | a5 | a6 | a7) < 0) {
+            break;
+          }
+          final long group =
+              (long) a0 << 35
+                  | (long) a1 << 30
+                  | a2 << 25
+                  | a3 << 20
+                  | a4 << 15
+                  | a5 << 10
+                  | a6 << 5
+                  | a7;
+          dst[d] = (byte) (group >>> 32);
+          dst[d + 1] = (byte) (group >>> 24);
+          dst[d + 2] = (byte) (group >>> 16);
+          dst[d + 3] = (byte) (group >>> 8);
+          dst[d + 4] = (byte) group;
+          i += 8;
+          d += 5;
+        }
+        if (i >= to) {
+          break;
+        }
+      }
+      final char ch = src[i];
+      final int v = ch < 256 ? map[ch] : Radix.INVALID;
+      if (v >= 0) {
+        bits = bits << 5 | v;
+        if (++n == 8) {
+          d = put(dst, d, bits, 5);
+          n = 0;
+          bits = 0L;
+        }
+      } else if (v != Radix.SKIP) {
+        throw invalid(ch, i - from);
+      }
+      i++;
+    }
+    return n == 0 ? d : put(dst, d, bits >>> (n * 5 & 7), tailLength(n));
+  }
+
+  private static int decode(
+      final CharSequence src, final int to, final byte[] dst, final int[] map) {
+    int d = 0;
+    int n = 0;
+    long bits = 0L;
+    for (int i = 0; i < to; i++) {
+      final char ch = src.charAt(i);
+      final int v = ch < 256 ? map[ch] : Radix.INVALID;
+      if (v >= 0) {
+        bits = bits << 5 | v;
+        if (++n == 8) {
+          d = put(dst, d, bits, 5);
+          n = 0;
+          bits = 0L;
+        }
+      } else if (v != Radix.SKIP) {
+        throw invalid(ch, i);
+      }
+    }
+    return n == 0 ? d : put(dst, d, bits >>> (n * 5 & 7), tailLength(n));
+  }
+
+  private static int decode(
+      final ByteBuffer src,
+      final int from,
+      final int to,
+      final ByteBuffer dst,
+      final int dstOff,
+      final int[] map) {
+    int d = dstOff;
+    int n = 0;
+    long bits = 0L;
+    for (int i = from; i < to; i++) {
+      final int ch = 0xFF & src.get(i);
+      final int v = map[ch];
+      if (v >= 0) {
+        bits = bits << 5 | v;
+        if (++n == 8) {
+          for (int k = 4; k >= 0; k--) {
+            dst.put(d++, (byte) (bits >>> (k << 3)));
+          }
+          n = 0;
+          bits = 0L;
+        }
+      } else if (v != Radix.SKIP) {
+        throw invalid(ch, i - from);
+      }
+    }
+    if (n > 0) {
+      final int count = tailLength(n);
+      bits >>>= n * 5 & 7;
+      for (int k = count - 1; k >= 0; k--) {
+        dst.put(d++, (byte) (bits >>> (k << 3)));
+      }
+    }
+    return d;
+  }
+
+  /* Writes the low count bytes of bits, high byte first */
+  private static int put(final byte[] dst, int d, final long bits, final int count) {
+    for (int k = count - 1; k >= 0; k--) {
+      dst[d++] = (byte) (bits >>> (k << 3));
+    }
+    return d;
+  }
+
+  /**
+   * Immutable Base 32 encoder of a single alphabet, with its pair table built once. Instances are
+   * thread safe and are meant to be kept in static fields.
+   *
+   * @see #encoder()
+   * @see #hexEncoder()
+   * @see #crockfordEncoder()
+   * @since 1.3
+   */
+  public static final class Encoder {
+
+    private static final Encoder BASIC = new Encoder(ALPHABET_BASIC, true);
+    private static final Encoder HEX = new Encoder(ALPHABET_HEX, true);
+    private static final Encoder CROCKFORD = new Encoder(ALPHABET_CROCKFORD, false);
+
+    private final char[] alphabet;
+    private final char[] pairs;
+    private final boolean padding;
+
+    private Encoder(char[] alphabet, boolean padding) {
+      this(alphabet, Radix.pairs(alphabet, 5), padding);
+    }
+
+    private Encoder(char[] alphabet, char[] pairs, boolean padding) {
+      this.alphabet = alphabet;
+      this.pairs = pairs;
+      this.padding = padding;
+    }
+
+    /**
+     * Returns an encoder like this one that does not write the padding characters.
+     *
+     * @return Encoder without padding
+     */
+    public Encoder withoutPadding() {
+      return padding ? new Encoder(alphabet, pairs, false) : this;
+    }
+
+    /**
+     * Calculates the exact number of ASCII bytes or characters this encoder writes for {@code len}
+     * input bytes.
+     *
+     * @param len Count of input bytes
+     * @return Count of encoded bytes
+     * @exception IllegalArgumentException If {@code len} is negative or the result is too large
+     */
+    public int encodedLength(final int len) {
+      if (len < 0) {
+        throw new IllegalArgumentException("The len argument is negative");
+      }
+      return Base32.encodedLength(len, padding);
+    }
+
+    /**
+     * Encodes the bytes into ASCII bytes.
+     *
+     * @param src Byte array as input
+     * @return Base32 encoded ASCII bytes as output
+     */
+    public byte[] encode(final byte[] src) {
+      if (src == null || src.length <= 0) {
+        return EMPTY_BYTES;
+      }
+      final byte[] ascii = new byte[encodedLength(src.length)];
+      Base32.encode(src, 0, src.length, ascii, 0, alphabet, pairs, padding);
+      return ascii;
+    }
+
+    /**
+     * Encodes {@code len} bytes of {@code src} from {@code srcOff} into {@code dst} as ASCII bytes
+     * from {@code dstOff}.
+     *
+     * @param src Byte array as input
+     * @param srcOff Index of the first input byte
+     * @param len Count of input bytes
+     * @param dst Byte array where the ASCII output is written to
+     * @param dstOff Index where the first output byte is written to
+     * @return Count of bytes written
+     * @exception IllegalArgumentException If a range is out of bounds or {@code dst} is too small
+     */
+    public int encode(
+        final byte[] src, final int srcOff, final int len, final byte[] dst, final int dstOff) {
+      Radix.checkRange(src.length, srcOff, len, "source");
+      final int count = encodedLength(len);
+      Radix.checkRange(dst.length, dstOff, count, "destination");
+      Base32.encode(src, srcOff, len, dst, dstOff, alphabet, pairs, padding);
+      return count;
+    }
+
+    /**
+     * Encodes {@code len} bytes of {@code src} from {@code srcOff} into {@code dst} as characters
+     * from {@code dstOff}.
+     *
+     * @param src Byte array as input
+     * @param srcOff Index of the first input byte
+     * @param len Count of input bytes
+     * @param dst Char array where the output is written to
+     * @param dstOff Index where the first output char is written to
+     * @return Count of chars written
+     * @exception IllegalArgumentException If a range is out of bounds or {@code dst} is too small
+     */
+    public int encode(
+        final byte[] src, final int srcOff, final int len, final char[] dst, final int dstOff) {
+      Radix.checkRange(src.length, srcOff, len, "source");
+      final int count = encodedLength(len);
+      Radix.checkRange(dst.length, dstOff, count, "destination");
+      Base32.encode(src, srcOff, len, dst, dstOff, alphabet, pairs, padding);
+      return count;
+    }
+
+    /**
+     * Encodes all remaining bytes of {@code src} into {@code dst} as ASCII bytes. Both buffers may
+     * be heap or direct buffers, and their positions are advanced by the number of bytes read and
+     * written. Nothing is allocated.
+     *
+     * @param src Byte buffer as input
+     * @param dst Byte buffer where the encoded ASCII bytes are written to
+     * @return The number of bytes written to {@code dst}
+     * @exception IllegalArgumentException If {@code dst} has not enough remaining space, in which
+     *     case neither buffer is modified
+     */
+    public int encode(final ByteBuffer src, final ByteBuffer dst) {
+      final int len = src.remaining();
+      final int count = encodedLength(len);
+      if (count > dst.remaining()) {
+        throw new IllegalArgumentException(
+            "The destination buffer needs "
+                + count
+                + " bytes but only "
+                + dst.remaining()
+                + " left");
+      }
+      final int srcPos = src.position();
+      final int dstPos = dst.position();
+      if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+        Base32.encode(
+            src.array(),
+            src.arrayOffset() + srcPos,
+            len,
+            dst.array(),
+            dst.arrayOffset() + dstPos,
+            alphabet,
+            pairs,
+            padding);
+      } else {
+        Base32.encode(src, srcPos, len, dst, dstPos, alphabet, padding);
+      }
+      ((Buffer) src).position(srcPos + len);
+      ((Buffer) dst).position(dstPos + count);
+      return count;
+    }
+
+    /**
+     * Encodes the bytes into a String.
+     *
+     * @param src Byte array as input
+     * @return Base32 encoded String as output
+     */
+    public String encodeToString(final byte[] src) {
+      if (src == null || src.length <= 0) {
+        return "";
+      }
+      return Radix.ascii(encode(src));
+    }
+  }
+
+  /**
+   * Immutable Base 32 decoder of a single alphabet, with its decode table built once. Instances
+   * are thread safe and are meant to be kept in static fields.
+   *
+   * <p>The padding is optional, but when it is there it must complete the last group of 8
+   * characters. The unused low bits of the last character are ignored.
+   *
+   * @see #decoder()
+   * @see #hexDecoder()
+   * @see #crockfordDecoder()
+   * @since 1.3
+   */
+  public static final class Decoder {
+
+    private static final Decoder BASIC = new Decoder(Radix.decodeMap(ALPHABET_BASIC, true));
+    private static final Decoder HEX = new Decoder(Radix.decodeMap(ALPHABET_HEX, true));
+    private static final Decoder CROCKFORD = new Decoder(crockfordMap());
+
+    private final int[] map;
+    private final boolean skips;
+
+    private Decoder(int[] map) {
+      this.map = map;
+      this.skips = map['-'] == Radix.SKIP;
+    }
+
+    private static int[] crockfordMap() {
+      final int[] map = Radix.decodeMap(ALPHABET_CROCKFORD, true);
+      map['O'] = map['o'] = 0;
+      map['I'] = map['i'] = map['L'] = map['l'] = 1;
+      map['-'] = Radix.SKIP;
+      return map;
+    }
+
+    /**
+     * Parse Base 32 encoded bytes to byte array.
+     *
+     * @param src Base 32 encoded ASCII bytes
+     * @return Byte array as output
+     * @exception IllegalArgumentException If the input is not well formed for this decoder
+     */
+    public byte[] decode(final byte[] src) {
+      if (src == null || src.length <= 0) {
+        return EMPTY_BYTES;
+      }
+      final int end = unpadded(src, 0, src.length);
+      final byte[] result = new byte[decodedLength(src, 0, end)];
+      Base32.decode(src, 0, end, result, 0, map);
+      return result;
+    }
+
+    /**
+     * Parse Base 32 encoded char array to byte array.
+     *
+     * @param src Base 32 encoded char array
+     * @return Byte array as output
+     * @exception IllegalArgumentException If the input is not well formed for this decoder
+     */
+    public byte[] decode(final char[] src) {
+      if (src == null || src.length <= 0) {
+        return EMPTY_BYTES;
+      }
+      final int end = unpadded(src);
+      final byte[] result = new byte[decodedLength(src, end)];
+      Base32.decode(src, 0, end, result, 0, map);
+      return result;
+    }
+
+    /**
+     * Parse Base 32 encoded String to byte array.
+     *
+     * @param s Base 32 encoded String
+     * @return Byte array as output
+     * @exception IllegalArgumentException If the input is not well formed for this decoder
+     */
+    public byte[] decode(final CharSequence s) {
+      if (s == null || s.length() <= 0) {
+        return EMPTY_BYTES;
+      }
+      final int end = unpadded(s);
+      final byte[] result = new byte[decodedLength(s, end)];
+      Base32.decode(s, end, result, map);
+      return result;
+    }
+
+    /**
+     * Parse {@code len} Base 32 encoded bytes of {@code src} from {@code srcOff} into a
+     * caller-supplied byte array.
+     *
+     * @param src Byte array of Base 32 encoded ASCII bytes
+     * @param srcOff Index of the first encoded byte
+     * @param len Count of encoded bytes
+     * @param dst Byte array where the decoded bytes are written to
+     * @param dstOff Index where the first decoded byte is written to
+     * @return The number of bytes written to {@code dst}
+     * @exception IllegalArgumentException If a range is out of bounds or the input is not well
+     *     formed for this decoder, in which case the bytes of {@code dst} from {@code dstOff} are
+     *     unspecified
+     */
+    public int decode(
+        final byte[] src, final int srcOff, final int len, final byte[] dst, final int dstOff) {
+      Radix.checkRange(src.length, srcOff, len, "source");
+      final int end = unpadded(src, srcOff, len);
+      final int count = decodedLength(src, srcOff, end);
+      Radix.checkRange(dst.length, dstOff, count, "destination");
+      Base32.decode(src, srcOff, srcOff + end, dst, dstOff, map);
+      return count;
+    }
+
+    /**
+     * Parse Base 32 encoded ASCII bytes from a byte buffer into another byte buffer.
+     *
+     * <p>All remaining bytes of {@code src} are decoded into {@code dst}. Both buffers may be heap
+     * or direct buffers, and their positions are advanced by the number of bytes read and written.
+     * Nothing is allocated.
+     *
+     * @param src Byte buffer of Base 32 encoded ASCII bytes
+     * @param dst Byte buffer where the decoded bytes are written to
+     * @return The number of bytes written to {@code dst}
+     * @exception IllegalArgumentException If {@code src} is not well formed for this decoder or
+     *     {@code dst} has not enough remaining space, in which case the positions of both buffers
+     *     are not changed but the bytes of {@code dst} from its position are unspecified
+     */
+    public int decode(final ByteBuffer src, final ByteBuffer dst) {
+      final int srcPos = src.position();
+      final int dstPos = dst.position();
+      final int end = unpadded(src, srcPos, src.remaining());
+      final int count = decodedLength(src, srcPos, end);
+      if (count > dst.remaining()) {
+        throw new IllegalArgumentException(
+            "The destination buffer needs "
+                + count
+                + " bytes but only "
+                + dst.remaining()
+                + " left");
+      }
+      if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+        final int from = src.arrayOffset() + srcPos;
+        Base32.decode(src.array(), from, from + end, dst.array(), dst.arrayOffset() + dstPos, map);
+      } else {
+        Base32.decode(src, srcPos, srcPos + end, dst, dstPos, map);
+      }
+      ((Buffer) src).position(src.limit());
+      ((Buffer) dst).position(dstPos + count);
+      return count;
+    }
+
+    /*
+     * The length helpers below read the input once more before decoding. They are cold next to
+     * the decode loops but still kept one per input type, so that no call site sees more than one.
+     */
+
+    private static int unpadded(final byte[] src, final int off, final int len) {
+      int end = len;
+      while (end > 0 && len - end < 6 && src[off + end - 1] == ALPHABET_PAD) {
+        end--;
+      }
+      return checkPadding(end, len);
+    }
+
+    private static int unpadded(final char[] src) {
+      final int len = src.length;
+      int end = len;
+      while (end > 0 && len - end < 6 && src[end - 1] == ALPHABET_PAD) {
+        end--;
+      }
+      return checkPadding(end, len);
+    }
+
+    private static int unpadded(final CharSequence src) {
+      final int len = src.length();
+      int end = len;
+      while (end > 0 && len - end < 6 && src.charAt(end - 1) == ALPHABET_PAD) {
+        end--;
+      }
+      return checkPadding(end, len);
+    }
+
+    private static int unpadded(final ByteBuffer src, final int off, final int len) {
+      int end = len;
+      while (end > 0 && len - end < 6 && src.get(off + end - 1) == ALPHABET_PAD) {
+        end--;
+      }
+      return checkPadding(end, len);
+    }
+
+    /* Returns the length without the trailing padding, which must complete a group of 8 */
+    private static int checkPadding(final int end, final int len) {
+      if (end < len && (len & 7) != 0) {
+        throw new IllegalArgumentException("Illegal base32 padding");
+      }
+      return end;
+    }
+
+    private int decodedLength(final byte[] src, final int off, final int end) {
+      int significant = end;
+      for (int i = off; skips && i < off + end; i++) {
+        if (map[0xFF & src[i]] == Radix.SKIP) {
+          significant--;
+        }
+      }
+      return decodedLength(significant);
+    }
+
+    private int decodedLength(final char[] src, final int end) {
+      int significant = end;
+      for (int i = 0; skips && i < end; i++) {
+        if (src[i] < 256 && map[src[i]] == Radix.SKIP) {
+          significant--;
+        }
+      }
+      return decodedLength(significant);
+    }
+
+    private int decodedLength(final CharSequence src, final int end) {
+      int significant = end;
+      for (int i = 0; skips && i < end; i++) {
+        final char ch = src.charAt(i);
+        if (ch < 256 && map[ch] == Radix.SKIP) {
+          significant--;
+        }
+      }
+      return decodedLength(significant);
+    }
+
+    private int decodedLength(final ByteBuffer src, final int off, final int end) {
+      int significant = end;
+      for (int i = off; skips && i < off + end; i++) {
+        if (map[0xFF & src.get(i)] == Radix.SKIP) {
+          significant--;
+        }
+      }
+      return decodedLength(significant);
+    }
+
+    private static int decodedLength(final int significant) {
+      return (significant >>> 3) * 5 + tailLength(significant & 7);
+    }
+  }
+}
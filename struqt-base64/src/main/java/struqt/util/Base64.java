@@ -5,7 +5,19 @@
 
 package struqt.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Base64 encode and decode implementation as <a href="https://tools.ietf.org/html/rfc2045#section-6.8">RFC
@@ -16,8 +28,22 @@ import java.util.Arrays;
  */
 public abstract class Base64 {
 
+  /**
+   * Count of characters in every line of RFC 2045 output but the last one, without the line
+   * separator. A line holds the encoding of {@code MIME_LINE_LENGTH / 4 * 3} input bytes.
+   *
+   * @since 1.3
+   */
+  public static final int MIME_LINE_LENGTH = 76;
+
+  private static final int MIME_WRAP = MIME_LINE_LENGTH >> 2;
+  private static final int DECODE_WINDOW = 1024;
+  private static final int PARALLEL_THRESHOLD = 1 << 20;
+  private static final int PARALLEL_GRAIN = 1 << 17;
+  private static final int FILE_CHUNK = MIME_WRAP * 3 << 20;
   private static final char[] EMPTY_CHARS = new char[0];
   private static final char[] LINE_SEPARATOR = new char[] {'\r', '\n'};
+  private static final byte[] CRLF = new byte[] {'\r', '\n'};
   private static final char ALPHABET_PAD = '=';
   private static final char[] ALPHABET_BASIC = {
     'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P',
@@ -33,16 +59,9 @@ public abstract class Base64 {
   };
 
   private static final byte[] EMPTY_BYTES = new byte[0];
-  private static final int[] DECODE_MAP = {
-    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-    -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 62, -1, 62, -1, 63,
-    52, 53, 54, 55, 56, 57, 58, 59, 60, 61, -1, -1, -1, -128, -1, -1,
-    -1, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14,
-    15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, -1, -1, -1, -1, 63,
-    -1, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35, 36, 37, 38, 39, 40,
-    41, 42, 43, 44, 45, 46, 47, 48, 49, 50, 51, -1, -1, -1, -1, -1
-  };
+  private static final ThreadLocal<char[]> DECODE_WINDOWS =
+      ThreadLocal.withInitial(() -> new char[DECODE_WINDOW]);
+  private static final int[] DECODE_MAP = decodeMap();
 
   /**
    * Parse Base 64 encoded String to byte array.
@@ -55,7 +74,7 @@ public abstract class Base64 {
     if (s == null) {
       return EMPTY_BYTES;
     }
-    return decodeNow(new InputCharSeq(s));
+    return decodeNow(s);
   }
 
   /**
@@ -69,7 +88,7 @@ public abstract class Base64 {
     if (bytes == null || bytes.length <= 0) {
       return EMPTY_BYTES;
     }
-    return decodeNow(new InputByteArray(bytes));
+    return decodeNow(bytes);
   }
 
   /**
@@ -83,7 +102,78 @@ public abstract class Base64 {
     if (chars == null || chars.length <= 0) {
       return EMPTY_BYTES;
     }
-    return decodeNow(new InputCharArray(chars));
+    return decodeNow(chars);
+  }
+
+  /**
+   * Parse {@code len} Base 64 encoded bytes of {@code buf} from {@code off} and write the decoded
+   * bytes over the front of the same range, which is safe because decoding never writes ahead of
+   * what it has read. No array is allocated.
+   *
+   * <p>The bytes of the range after the decoded ones are left unspecified, and so is the whole
+   * range when the input turns out not to be well formed Base 64.
+   *
+   * @param buf Byte array holding the Base 64 encoded ASCII bytes
+   * @param off Index of the first encoded byte
+   * @param len Count of encoded bytes
+   * @return Count of decoded bytes, written from {@code off}
+   * @exception IllegalArgumentException If the range is out of bounds or the input is not well
+   *     formed Base 64
+   * @since 1.3
+   */
+  public static int decodeInPlace(final byte[] buf, final int off, final int len) {
+    Radix.checkRange(buf.length, off, len, "buffer");
+    final long state =
+        decodeBytes(buf, off, off + len, buf, off + len, (long) off << 32, DECODE_MAP, null, 0L);
+    return decodeTail(buf, state) - off;
+  }
+
+  /**
+   * Calculates the exact number of bytes that {@link #decode(CharSequence)} returns for the input,
+   * so that pooled buffers can be sized for it. Every character is checked once.
+   *
+   * @param s Base 64 encoded String
+   * @return The decoded byte count
+   * @exception IllegalArgumentException If the input is not well formed Base 64
+   * @since 1.3
+   */
+  public static int decodedLength(final CharSequence s) {
+    if (s == null) {
+      return 0;
+    }
+    return decodedLength(new InputCharSeq(s));
+  }
+
+  /**
+   * Calculates the exact number of bytes that {@link #decode(byte[])} returns for the input, so
+   * that pooled buffers can be sized for it. Every byte is checked once.
+   *
+   * @param bytes Base 64 encoded bytes
+   * @return The decoded byte count
+   * @exception IllegalArgumentException If the input is not well formed Base 64
+   * @since 1.3
+   */
+  public static int decodedLength(final byte[] bytes) {
+    if (bytes == null) {
+      return 0;
+    }
+    return decodedLength(new InputByteArray(bytes));
+  }
+
+  /**
+   * Calculates the exact number of bytes that {@link #decode(char[])} returns for the input, so
+   * that pooled buffers can be sized for it. Every character is checked once.
+   *
+   * @param chars Base 64 encoded char array
+   * @return The decoded byte count
+   * @exception IllegalArgumentException If the input is not well formed Base 64
+   * @since 1.3
+   */
+  public static int decodedLength(final char[] chars) {
+    if (chars == null) {
+      return 0;
+    }
+    return decodedLength(new InputCharArray(chars));
   }
 
   /**
@@ -95,7 +185,7 @@ public abstract class Base64 {
    * @since 1.1
    */
   public static String encodeToString(byte[] bytes) {
-    return String.valueOf(encode(bytes, false, false, true));
+    return encodeToAscii(bytes, ALPHABET_BASIC, true, 0);
   }
 
   /**
@@ -107,7 +197,7 @@ public abstract class Base64 {
    * @since 1.1
    */
   public static String encodeToUrlSafe(byte[] bytes) {
-    return String.valueOf(encode(bytes, true, false, true));
+    return encodeToAscii(bytes, ALPHABET_URL_SAFE, true, 0);
   }
 
   /**
@@ -123,7 +213,7 @@ public abstract class Base64 {
    * @since 1.1
    */
   public static String encodeToMime(byte[] bytes) {
-    return String.valueOf(encode(bytes, false, true, true));
+    return encodeToAscii(bytes, ALPHABET_BASIC, true, MIME_WRAP);
   }
 
   /**
@@ -142,146 +232,2109 @@ public abstract class Base64 {
       return encode(bytes, ALPHABET_URL_SAFE, padding, 0);
     } else {
       if (mime) {
-        return encode(bytes, ALPHABET_BASIC, padding, 19);
+        return encode(bytes, ALPHABET_BASIC, padding, MIME_WRAP);
       } else {
         return encode(bytes, ALPHABET_BASIC, padding, 0);
       }
     }
   }
 
-  private static char[] encode(byte[] bytes, char[] alphabet, boolean padding, int wrap) {
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> and append it to a {@code
+   * StringBuilder}, which grows at most once. No intermediate array is allocated.
+   *
+   * @param bytes Byte array as input
+   * @param out String builder where the encoded characters are appended to
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The number of chars appended to {@code out}
+   * @since 1.3
+   */
+  public static int encode(
+      final byte[] bytes,
+      final StringBuilder out,
+      final boolean url,
+      final boolean mime,
+      final boolean padding) {
     if (bytes == null || bytes.length <= 0) {
-      return EMPTY_CHARS;
+      return 0;
+    }
+    final int wrap = !url && mime ? MIME_WRAP : 0;
+    out.ensureCapacity(out.length() + encodedLength(bytes.length, padding, wrap));
+    try {
+      return encode(bytes, out, url ? ALPHABET_URL_SAFE : ALPHABET_BASIC, padding, wrap);
+    } catch (IOException e) {
+      /* StringBuilder never throws IOException */
+      throw new IllegalStateException(e);
     }
-    int loopCount = bytes.length / 3;
-    int remainOffset = loopCount * 3;
-    int remainCharOffset = loopCount * 4;
-    int remains = bytes.length - remainOffset;
-    int charCount = remains <= 0 ? remainCharOffset : remainCharOffset + 4;
-    if (!padding) {
-      int paddingCount = remains == 1 ? 2 : remains == 2 ? 1 : 0;
-      charCount -= paddingCount;
+  }
+
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> and append it to an {@code
+   * Appendable} one character at a time. No intermediate array is allocated.
+   *
+   * @param bytes Byte array as input
+   * @param out Appendable where the encoded characters are appended to
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The number of chars appended to {@code out}
+   * @throws java.io.IOException If {@code out} throws it
+   * @since 1.3
+   */
+  public static int encode(
+      final byte[] bytes,
+      final Appendable out,
+      final boolean url,
+      final boolean mime,
+      final boolean padding)
+      throws IOException {
+    if (bytes == null || bytes.length <= 0) {
+      return 0;
     }
-    int lineWidth = wrap << 2;
-    int lineCount = lineWidth <= 0 ? 0 : charCount / lineWidth;
-    if (charCount > lineWidth * lineCount) {
-      lineCount++;
+    final int wrap = !url && mime ? MIME_WRAP : 0;
+    return encode(bytes, out, url ? ALPHABET_URL_SAFE : ALPHABET_BASIC, padding, wrap);
+  }
+
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a>.
+   *
+   * <p>All remaining bytes of {@code src} are encoded into {@code dst} as ASCII bytes. Both
+   * buffers may be heap or direct buffers, and their positions are advanced by the number of
+   * bytes read and written. Nothing is allocated.
+   *
+   * @param src Byte buffer as input
+   * @param dst Byte buffer where the encoded ASCII bytes are written to
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If {@code dst} has not enough remaining space, in which
+   *     case neither buffer is modified
+   * @since 1.3
+   */
+  public static int encode(final ByteBuffer src, final ByteBuffer dst) {
+    return encode(src, dst, false, false, true);
+  }
+
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a>.
+   *
+   * <p>All remaining bytes of {@code src} are encoded into {@code dst} as ASCII bytes. Both
+   * buffers may be heap or direct buffers, and their positions are advanced by the number of
+   * bytes read and written. Nothing is allocated.
+   *
+   * @param src Byte buffer as input
+   * @param dst Byte buffer where the encoded ASCII bytes are written to
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If {@code dst} has not enough remaining space, in which
+   *     case neither buffer is modified
+   * @since 1.3
+   */
+  public static int encode(
+      final ByteBuffer src,
+      final ByteBuffer dst,
+      final boolean url,
+      final boolean mime,
+      final boolean padding) {
+    final char[] alphabet = url ? ALPHABET_URL_SAFE : ALPHABET_BASIC;
+    final int wrap = !url && mime ? MIME_WRAP : 0;
+    final int len = src.remaining();
+    final int count = encodedLength(len, padding, wrap);
+    if (count > dst.remaining()) {
+      throw new IllegalArgumentException(
+          "The destination buffer needs " + count + " bytes but only " + dst.remaining() + " left");
     }
-    if (lineCount > 1) {
-      charCount += ((lineCount - 1) << 1);
+    final int srcPos = src.position();
+    final int dstPos = dst.position();
+    if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+      encode(
+          src.array(),
+          src.arrayOffset() + srcPos,
+          len,
+          dst.array(),
+          dst.arrayOffset() + dstPos,
+          alphabet,
+          padding,
+          wrap);
+    } else {
+      encode(src, srcPos, len, dst, dstPos, alphabet, padding, wrap);
     }
-    boolean multiLine = wrap > 0 && lineCount > 1;
-    int iWrap = 0;
-    int line = 0;
-    char[] chars = new char[charCount];
-    int bytesOffset;
-    int charsOffset;
-    for (int i = 0; i < loopCount; i++) {
-      bytesOffset = i * 3;
-      charsOffset = (i << 2) + (line << 1);
-      encode24Bits(chars, charsOffset, bytes, bytesOffset, 3, alphabet, padding);
-      if (multiLine && (line + 1) < lineCount) {
-        iWrap++;
-        if (iWrap == wrap) {
-          chars[charsOffset + 4] = LINE_SEPARATOR[0];
-          chars[charsOffset + 5] = LINE_SEPARATOR[1];
-          line++;
-          iWrap = 0;
-        }
-      }
+    ((Buffer) src).position(srcPos + len);
+    ((Buffer) dst).position(dstPos + count);
+    return count;
+  }
+
+  /**
+   * Parse Base 64 encoded ASCII bytes from a byte buffer into another byte buffer.
+   *
+   * <p>All remaining bytes of {@code src} are decoded into {@code dst}. Both buffers may be heap or
+   * direct buffers, and their positions are advanced by the number of bytes read and written.
+   * Nothing is allocated.
+   *
+   * @param src Byte buffer of Base 64 encoded ASCII bytes
+   * @param dst Byte buffer where the decoded bytes are written to
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If {@code src} is not well formed Base 64 or {@code dst}
+   *     has not enough remaining space, in which case neither buffer position is changed
+   * @since 1.3
+   */
+  public static int decode(final ByteBuffer src, final ByteBuffer dst) {
+    final int begin = src.position();
+    final int end = src.limit();
+    final int start = dst.position();
+    final int limit = dst.limit();
+    final int offset;
+    if (src.hasArray()
+        && dst.hasArray()
+        && !dst.isReadOnly()
+        && decodedLength(end - begin) <= limit - start) {
+      /* Even with no skipped characters the decoded bytes fit, so the unchecked kernels are safe */
+      final byte[] out = dst.array();
+      final int shift = dst.arrayOffset();
+      final int from = src.arrayOffset() + begin;
+      final long state =
+          decodeBytes(
+              src.array(),
+              from,
+              from + end - begin,
+              out,
+              shift + limit,
+              (long) (shift + start) << 32,
+              DECODE_MAP,
+              null,
+              -from);
+      offset = decodeTail(out, state) - shift;
+    } else {
+      final long state = decodeBuffer(src, begin, end, dst, limit, (long) start << 32, 0L);
+      offset = decodeTail(dst, limit, state);
     }
-    if (remains > 0) {
-      bytesOffset = loopCount * 3;
-      charsOffset = (loopCount << 2) + (line << 1);
-      encode24Bits(chars, charsOffset, bytes, bytesOffset, remains, alphabet, padding);
+    ((Buffer) src).position(end);
+    ((Buffer) dst).position(offset);
+    return offset - start;
+  }
+
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> into a caller-supplied byte
+   * array as ASCII bytes, with padding and without line separators.
+   *
+   * @param src Byte array as input
+   * @param srcOff Starting position in the {@code src} byte array
+   * @param len Number of bytes to be encoded
+   * @param dst Byte array where the encoded ASCII bytes are written to
+   * @param dstOff Starting position in the {@code dst} byte array
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If a range is outside the bounds of its array
+   * @see #encodedLength(int, boolean, boolean, boolean)
+   * @since 1.3
+   */
+  public static int encode(
+      final byte[] src, final int srcOff, final int len, final byte[] dst, final int dstOff) {
+    return encode(src, srcOff, len, dst, dstOff, false, false, true);
+  }
+
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> into a caller-supplied byte
+   * array as ASCII bytes.
+   *
+   * @param src Byte array as input
+   * @param srcOff Starting position in the {@code src} byte array
+   * @param len Number of bytes to be encoded
+   * @param dst Byte array where the encoded ASCII bytes are written to
+   * @param dstOff Starting position in the {@code dst} byte array
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The number of bytes written to {@code dst}
+   * @exception IllegalArgumentException If a range is outside the bounds of its array
+   * @see #encodedLength(int, boolean, boolean, boolean)
+   * @since 1.3
+   */
+  public static int encode(
+      final byte[] src,
+      final int srcOff,
+      final int len,
+      final byte[] dst,
+      final int dstOff,
+      final boolean url,
+      final boolean mime,
+      final boolean padding) {
+    final int wrap = !url && mime ? MIME_WRAP : 0;
+    Radix.checkRange(src.length, srcOff, len, "source");
+    final int count = encodedLength(len, padding, wrap);
+    Radix.checkRange(dst.length, dstOff, count, "destination");
+    encode(src, srcOff, len, dst, dstOff, url ? ALPHABET_URL_SAFE : ALPHABET_BASIC, padding, wrap);
+    return count;
+  }
+
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> into a caller-supplied char
+   * array, with padding and without line separators.
+   *
+   * @param src Byte array as input
+   * @param srcOff Starting position in the {@code src} byte array
+   * @param len Number of bytes to be encoded
+   * @param dst Char array where the encoded characters are written to
+   * @param dstOff Starting position in the {@code dst} char array
+   * @return The number of chars written to {@code dst}
+   * @exception IllegalArgumentException If a range is outside the bounds of its array
+   * @see #encodedLength(int, boolean, boolean, boolean)
+   * @since 1.3
+   */
+  public static int encode(
+      final byte[] src, final int srcOff, final int len, final char[] dst, final int dstOff) {
+    return encode(src, srcOff, len, dst, dstOff, false, false, true);
+  }
+
+  /**
+   * Generate Base 64 encoding as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> into a caller-supplied char
+   * array.
+   *
+   * @param src Byte array as input
+   * @param srcOff Starting position in the {@code src} byte array
+   * @param len Number of bytes to be encoded
+   * @param dst Char array where the encoded characters are written to
+   * @param dstOff Starting position in the {@code dst} char array
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The number of chars written to {@code dst}
+   * @exception IllegalArgumentException If a range is outside the bounds of its array
+   * @see #encodedLength(int, boolean, boolean, boolean)
+   * @since 1.3
+   */
+  public static int encode(
+      final byte[] src,
+      final int srcOff,
+      final int len,
+      final char[] dst,
+      final int dstOff,
+      final boolean url,
+      final boolean mime,
+      final boolean padding) {
+    final int wrap = !url && mime ? MIME_WRAP : 0;
+    Radix.checkRange(src.length, srcOff, len, "source");
+    final int count = encodedLength(len, padding, wrap);
+    Radix.checkRange(dst.length, dstOff, count, "destination");
+    encode(src, srcOff, len, dst, dstOff, url ? ALPHABET_URL_SAFE : ALPHABET_BASIC, padding, wrap);
+    return count;
+  }
+
+  /**
+   * Calculates how many characters are produced when encoding {@code len} bytes with the specified
+   * options, including padding and line separators.
+   *
+   * @param len Number of bytes to be encoded
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The exact length of the encoded output
+   * @exception IllegalArgumentException If {@code len} is negative or the result is too large
+   * @since 1.3
+   */
+  public static int encodedLength(
+      final int len, final boolean url, final boolean mime, final boolean padding) {
+    if (len < 0) {
+      throw new IllegalArgumentException("The len argument is negative");
     }
-    return chars;
+    return encodedLength(len, padding, !url && mime ? MIME_WRAP : 0);
   }
 
-  private static void encode24Bits(
-      char[] chars,
-      int charsOffset,
-      byte[] bytes,
-      int bytesOffset,
-      int byteCount,
-      char[] alphabet,
-      boolean padding) {
-
-    if (byteCount >= 3) {
-      int byte1 = 0xFF & bytes[bytesOffset];
-      int byte2 = 0xFF & bytes[bytesOffset + 1];
-      int byte3 = 0xFF & bytes[bytesOffset + 2];
-      int bits = (byte1 << 16) | (byte2 << 8) | byte3;
-      chars[charsOffset] = alphabet[0x3F & (bits >>> 18)];
-      chars[charsOffset + 1] = alphabet[0x3F & (bits >>> 12)];
-      chars[charsOffset + 2] = alphabet[0x3F & (bits >>> 6)];
-      chars[charsOffset + 3] = alphabet[0x3F & bits];
-    } else if (byteCount == 2) {
-      int byte1 = 0xFF & bytes[bytesOffset];
-      int byte2 = 0xFF & bytes[bytesOffset + 1];
-      int bits = (byte1 << 16) | (byte2 << 8);
-      chars[charsOffset] = alphabet[0x3F & (bits >>> 18)];
-      chars[charsOffset + 1] = alphabet[0x3F & (bits >>> 12)];
-      chars[charsOffset + 2] = alphabet[0x3F & (bits >>> 6)];
-      if (padding) {
-        chars[charsOffset + 3] = ALPHABET_PAD;
+  /**
+   * Wraps an output stream so that the bytes written to it are Base 64 encoded as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> or <a
+   * href="https://tools.ietf.org/html/rfc2045#section-6.8">RFC 2045</a>.
+   *
+   * <p>The input is encoded in fixed-size chunks, so memory use stays the same no matter how long
+   * the stream is. The returned stream must be closed to write the final group and the padding,
+   * which also closes the wrapped stream.
+   *
+   * @param os Output stream where the encoded ASCII bytes are written to
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return Output stream that encodes the bytes written to it
+   * @exception NullPointerException If the {@code os} argument is null
+   * @since 1.3
+   */
+  public static OutputStream wrapEncoder(
+      final OutputStream os, final boolean url, final boolean mime, final boolean padding) {
+    final char[] alphabet = url ? ALPHABET_URL_SAFE : ALPHABET_BASIC;
+    return new Base64OutputStream(os, alphabet, padding, !url && mime ? MIME_WRAP : 0);
+  }
+
+  /**
+   * Wraps an input stream of Base 64 encoded ASCII bytes so that the decoded bytes are read from
+   * it.
+   *
+   * <p>The input is decoded in fixed-size chunks, so memory use stays the same no matter how long
+   * the stream is. Both alphabets are accepted and line separators are ignored, as {@link
+   * #decode(byte[])} does. Malformed input is reported as {@link java.io.IOException} when it is
+   * read.
+   *
+   * @param is Input stream of Base 64 encoded ASCII bytes
+   * @return Input stream of decoded bytes
+   * @exception NullPointerException If the {@code is} argument is null
+   * @since 1.3
+   */
+  public static InputStream wrapDecoder(final InputStream is) {
+    return new Base64InputStream(is, DECODE_MAP);
+  }
+
+  /**
+   * Encodes a file into another file as Base 64 ASCII bytes as specified in <a
+   * href="https://tools.ietf.org/html/rfc4648#section-4">RFC 4648</a> or <a
+   * href="https://tools.ietf.org/html/rfc2045#section-6.8">RFC 2045</a>.
+   *
+   * <p>Both files are memory mapped window by window, and every window is encoded straight from
+   * the input mapping into the output mapping, so heap use stays the same no matter how large the
+   * files are. The output windows cover exactly the encoded length, which sizes the output file.
+   *
+   * @param in Path of the file to be encoded
+   * @param out Path of the output file, which is created or truncated
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return The number of bytes written to the output file
+   * @exception IOException If an I/O error occurs
+   * @since 1.3
+   */
+  public static long encodeFile(
+      final Path in, final Path out, final boolean url, final boolean mime, final boolean padding)
+      throws IOException {
+    return encodeFile(in, out, url, mime, padding, FILE_CHUNK);
+  }
+
+  /* Encodes with input windows of chunk bytes, which must be a multiple of MIME_WRAP * 3 */
+  static long encodeFile(
+      final Path in,
+      final Path out,
+      final boolean url,
+      final boolean mime,
+      final boolean padding,
+      final int chunk)
+      throws IOException {
+    final char[] alphabet = url ? ALPHABET_URL_SAFE : ALPHABET_BASIC;
+    final int wrap = !url && mime ? MIME_WRAP : 0;
+    try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+        FileChannel dst =
+            FileChannel.open(
+                out,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+      final long size = src.size();
+      long s = 0;
+      long d = 0;
+      while (s < size) {
+        final int n = (int) Math.min(chunk, size - s);
+        /* Every window but the last one ends a line, so it is followed by a line separator */
+        final boolean more = s + n < size;
+        final int count = encodedLength(n, padding, wrap) + (more && wrap > 0 ? CRLF.length : 0);
+        final ByteBuffer input = src.map(FileChannel.MapMode.READ_ONLY, s, n);
+        final ByteBuffer output = dst.map(FileChannel.MapMode.READ_WRITE, d, count);
+        encode(input, 0, n, output, 0, alphabet, padding, wrap);
+        if (more && wrap > 0) {
+          output.put(count - 2, CRLF[0]);
+          output.put(count - 1, CRLF[1]);
+        }
+        s += n;
+        d += count;
       }
-    } else if (byteCount == 1) {
-      int byte1 = 0xFF & bytes[bytesOffset];
-      int bits = (byte1 << 16);
-      chars[charsOffset] = alphabet[0x3F & (bits >>> 18)];
-      chars[charsOffset + 1] = alphabet[0x3F & (bits >>> 12)];
-      if (padding) {
-        chars[charsOffset + 2] = ALPHABET_PAD;
-        chars[charsOffset + 3] = ALPHABET_PAD;
+      return d;
+    }
+  }
+
+  /**
+   * Decodes a file of Base 64 encoded ASCII bytes into another file. Both alphabets are accepted
+   * and line separators are ignored, as {@link #decode(byte[])} does.
+   *
+   * <p>Both files are memory mapped window by window, and every window is decoded straight from
+   * the input mapping into the output mapping, so heap use stays the same no matter how large the
+   * files are. The significant characters of every input window are counted before it is decoded,
+   * so its output window covers exactly the bytes it completes and the output file is never grown
+   * past the decoded length.
+   *
+   * @param in Path of the file to be decoded
+   * @param out Path of the output file, which is created or truncated
+   * @return The number of bytes written to the output file
+   * @exception IOException If an I/O error occurs
+   * @exception IllegalArgumentException If the input is not well formed Base 64
+   * @since 1.3
+   */
+  public static long decodeFile(final Path in, final Path out) throws IOException {
+    return decodeFile(in, out, FILE_CHUNK);
+  }
+
+  /* Decodes with input windows of chunk bytes */
+  static long decodeFile(final Path in, final Path out, final int chunk) throws IOException {
+    try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+        FileChannel dst =
+            FileChannel.open(
+                out,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+      final long size = src.size();
+      long s = 0;
+      long d = 0;
+      long state = 0L;
+      while (s < size) {
+        final int n = (int) Math.min(chunk, size - s);
+        final boolean last = s + n == size;
+        final ByteBuffer input = src.map(FileChannel.MapMode.READ_ONLY, s, n);
+        /* The sextets pending from the previous window count, and the tail of the last one */
+        final int chars = ((int) state >>> 24) + significant(input, n);
+        final int count = chars / 4 * 3 + (last && (chars & 3) > 1 ? (chars & 3) - 1 : 0);
+        final ByteBuffer output = dst.map(FileChannel.MapMode.READ_WRITE, d, count);
+        state = decodeBuffer(input, 0, n, output, count, state & 0xFFFFFFFFL, s);
+        if (last) {
+          decodeTail(output, count, state);
+        }
+        s += n;
+        d += count;
       }
+      return d;
     }
   }
 
-  private static byte[] decodeNow(final Base64Input s) {
-    int len = s.size();
-    int maxBytes = (len * 3) >>> 2;
-    byte[] result = new byte[maxBytes];
-    int i = 0;
-    int[] chars = new int[] {-1, -1, -1, -1};
-    int charCount = 0;
-    int loop = 0;
-    int bits;
-    while (i < len) {
-      int ch = s.byteAt(i++);
-      if (ch < 9 || ch > 123) {
-        throw new IllegalArgumentException(
-            "Invalid base64 character '" + ch + "' at position " + i);
+  /**
+   * Returns the encoder of the basic alphabet with padding and without line separators, as {@link
+   * #encodeToString(byte[])} does.
+   *
+   * @return Shared {@link Encoder} instance
+   * @since 1.3
+   */
+  public static Encoder encoder() {
+    return Encoder.BASIC;
+  }
+
+  /**
+   * Returns the encoder of the URL and Filename Safe alphabet with padding and without line
+   * separators, as {@link #encodeToUrlSafe(byte[])} does.
+   *
+   * @return Shared {@link Encoder} instance
+   * @since 1.3
+   */
+  public static Encoder urlEncoder() {
+    return Encoder.URL_SAFE;
+  }
+
+  /**
+   * Returns the RFC 2045 encoder with lines of 76 characters separated by "\r\n", as {@link
+   * #encodeToMime(byte[])} does.
+   *
+   * @return Shared {@link Encoder} instance
+   * @since 1.3
+   */
+  public static Encoder mimeEncoder() {
+    return Encoder.MIME;
+  }
+
+  /**
+   * Returns the lenient decoder of the basic alphabet. Padding, white spaces and line separators
+   * are ignored, and the characters of the URL and Filename Safe alphabet are rejected.
+   *
+   * @return Shared {@link Decoder} instance
+   * @since 1.3
+   */
+  public static Decoder decoder() {
+    return Decoder.BASIC;
+  }
+
+  /**
+   * Returns the lenient decoder of the URL and Filename Safe alphabet. Padding, white spaces and
+   * line separators are ignored, and the characters of the basic alphabet are rejected.
+   *
+   * @return Shared {@link Decoder} instance
+   * @since 1.3
+   */
+  public static Decoder urlDecoder() {
+    return Decoder.URL_SAFE;
+  }
+
+  /**
+   * Generate Base 64 encoding as ASCII bytes, encoding large inputs on the common {@link
+   * ForkJoinPool}.
+   *
+   * <p>Inputs of at least 1 MiB are split at 3-byte boundaries, or at line boundaries for RFC 2045
+   * output, and every part is encoded straight into its own range of the result array. Smaller
+   * inputs are encoded in the calling thread.
+   *
+   * @param bytes Byte array as input
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @return Base64 encoded ASCII bytes as output
+   * @since 1.3
+   */
+  public static byte[] encodeParallel(
+      final byte[] bytes, final boolean url, final boolean mime, final boolean padding) {
+    return encodeParallel(
+        bytes, url, mime, padding, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Generate Base 64 encoding as ASCII bytes, encoding inputs of at least {@code threshold} bytes
+   * on the specified {@link ForkJoinPool}.
+   *
+   * @param bytes Byte array as input
+   * @param url Use URL Safe alphabet or not
+   * @param mime RFC 2045 specified multi-line Base 64 encoding
+   * @param padding Whether fill the padding character in the end of output
+   * @param pool Fork join pool where the parts are encoded
+   * @param threshold Inputs shorter than this are encoded in the calling thread
+   * @return Base64 encoded ASCII bytes as output
+   * @since 1.3
+   */
+  public static byte[] encodeParallel(
+      final byte[] bytes,
+      final boolean url,
+      final boolean mime,
+      final boolean padding,
+      final ForkJoinPool pool,
+      final int threshold) {
+    if (bytes == null || bytes.length <= 0) {
+      return EMPTY_BYTES;
+    }
+    final char[] alphabet = url ? ALPHABET_URL_SAFE : ALPHABET_BASIC;
+    final int wrap = !url && mime ? MIME_WRAP : 0;
+    final byte[] ascii = new byte[encodedLength(bytes.length, padding, wrap)];
+    if (bytes.length < threshold) {
+      encode(bytes, 0, bytes.length, ascii, 0, alphabet, padding, wrap);
+    } else {
+      pool.invoke(new EncodeTask(bytes, 0, bytes.length, ascii, alphabet, padding, wrap));
+    }
+    return ascii;
+  }
+
+  /**
+   * Parse Base 64 encoded ASCII bytes to byte array, decoding large inputs on the common {@link
+   * ForkJoinPool}.
+   *
+   * <p>Inputs of at least 1 MiB are split into parts, and every part decodes the quads that start
+   * in it straight into its own range of the result array with the same kernels as {@link
+   * #decode(byte[])}. Where the parts start in the output is taken from the line separators of
+   * single line input and of the RFC 2045 layout first. If a part turns out to hold other skipped
+   * characters, the significant characters of all parts are counted in parallel and the parts are
+   * decoded again. Smaller inputs are decoded in the calling thread. Characters are accepted and
+   * ignored the same way as {@link #decode(byte[])} does.
+   *
+   * @param bytes Base 64 encoded ASCII bytes
+   * @return Byte array as output
+   * @exception IllegalArgumentException If the input is not well formed Base 64
+   * @since 1.3
+   */
+  public static byte[] decodeParallel(final byte[] bytes) {
+    return decodeParallel(bytes, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Parse Base 64 encoded ASCII bytes to byte array, decoding inputs of at least {@code threshold}
+   * bytes on the specified {@link ForkJoinPool}.
+   *
+   * @param bytes Base 64 encoded ASCII bytes
+   * @param pool Fork join pool where the parts are decoded
+   * @param threshold Inputs shorter than this are decoded in the calling thread
+   * @return Byte array as output
+   * @exception IllegalArgumentException If the input is not well formed Base 64
+   * @since 1.3
+   */
+  public static byte[] decodeParallel(
+      final byte[] bytes, final ForkJoinPool pool, final int threshold) {
+    if (bytes == null || bytes.length <= 0) {
+      return EMPTY_BYTES;
+    }
+    if (bytes.length < threshold) {
+      return decodeNow(bytes);
+    }
+    final int chunkCount = (bytes.length - 1) / PARALLEL_GRAIN + 1;
+    final int[] starts = new int[chunkCount + 1];
+    /* The counts of a regular layout are tried first, decoding tells whether they were right */
+    int total = toStarts(guessCounts(bytes, starts));
+    if ((total & 3) != 1) {
+      byte[] result = new byte[decodedLength(total)];
+      if (pool.invoke(new DecodeTask(bytes, starts, result, 0, chunkCount))) {
+        return result;
       }
-      int c = DECODE_MAP[ch];
-      if (c < 0) {
-        continue;
+    }
+    pool.invoke(new DecodeTask(bytes, starts, null, 0, chunkCount));
+    total = toStarts(starts);
+    if ((total & 3) == 1) {
+      throw new IllegalArgumentException("Illegal base64 character count");
+    }
+    byte[] result = new byte[decodedLength(total)];
+    pool.invoke(new DecodeTask(bytes, starts, result, 0, chunkCount));
+    return result;
+  }
+
+  /**
+   * Guesses the significant character count of every chunk into {@code starts}, from line
+   * separators at the positions of the RFC 2045 layout and the trailing characters that are
+   * skipped, as {@link #maxSignificant} does. Only a few bytes are read, and the guess is exact for
+   * single line input and for the output of {@link #encodeToMime}. Any other skipped character
+   * makes the guess too large, never too small.
+   */
+  private static int[] guessCounts(final byte[] src, final int[] starts) {
+    int end = src.length;
+    while (end > 0) {
+      int ch = src[end - 1];
+      if (ch < 9 || ch > 123 || DECODE_MAP[ch] >= 0) {
+        break;
       }
-      chars[charCount++] = c;
-      if (charCount == 4) {
-        bits = chars[0] << 18 | chars[1] << 12 | chars[2] << 6 | chars[3];
-        int offset = 3 * loop++;
-        result[offset] = (byte) (bits >>> 16);
-        result[offset + 1] = (byte) (bits >>> 8);
-        result[offset + 2] = (byte) bits;
-        charCount = 0;
-        Arrays.fill(chars, -1);
+      end--;
+    }
+    for (int k = 0; k + 1 < starts.length; k++) {
+      starts[k] = Math.min(end, (k + 1) * PARALLEL_GRAIN) - Math.min(end, k * PARALLEL_GRAIN);
+    }
+    for (int i = MIME_LINE_LENGTH; i + 1 < end; i += MIME_LINE_LENGTH + 2) {
+      if (src[i] != LINE_SEPARATOR[0] || src[i + 1] != LINE_SEPARATOR[1]) {
+        break;
       }
+      starts[i / PARALLEL_GRAIN]--;
+      starts[(i + 1) / PARALLEL_GRAIN]--;
     }
-    int offset = 3 * loop;
-    if (charCount == 3) {
-      bits = chars[0] << 18 | chars[1] << 12 | chars[2] << 6;
-      result[offset++] = (byte) (bits >>> 16);
-      result[offset++] = (byte) (bits >>> 8);
-    } else if (charCount == 2) {
-      bits = chars[0] << 18 | chars[1] << 12;
-      result[offset++] = (byte) (bits >>> 16);
-    } else if (charCount == 1) {
-      throw new IllegalArgumentException("Illegal base64 character count");
+    return starts;
+  }
+
+  /* Turns the significant character count of every chunk into the index of its first one */
+  private static int toStarts(final int[] starts) {
+    final int chunkCount = starts.length - 1;
+    int total = 0;
+    for (int k = 0; k < chunkCount; k++) {
+      int count = starts[k];
+      starts[k] = total;
+      total += count;
     }
-    return Arrays.copyOf(result, offset);
+    starts[chunkCount] = total;
+    return total;
+  }
+
+  private static int encodedLength(int len, boolean padding, int wrap) {
+    return encodedLength(len, padding, wrap, CRLF.length);
+  }
+
+  private static int encodedLength(int len, boolean padding, int wrap, int separatorLength) {
+    long count = (len / 3) * 4L;
+    int remains = len % 3;
+    if (remains > 0) {
+      count += padding ? 4 : remains + 1;
+    }
+    if (wrap > 0 && count > 0) {
+      count += (count - 1) / (wrap << 2) * separatorLength;
+    }
+    if (count > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Input is too large to be encoded as Base64");
+    }
+    return (int) count;
+  }
+
+  private static void encode(
+      byte[] src,
+      int srcOff,
+      int len,
+      byte[] dst,
+      int dstOff,
+      char[] alphabet,
+      boolean padding,
+      int wrap) {
+    encode(src, srcOff, len, dst, dstOff, alphabet, padding, wrap, CRLF);
+  }
+
+  private static void encode(
+      byte[] src,
+      int srcOff,
+      int len,
+      byte[] dst,
+      int dstOff,
+      char[] alphabet,
+      boolean padding,
+      int wrap,
+      byte[] separator) {
+    final int end = srcOff + len;
+    final int lineBytes = wrap > 0 ? wrap * 3 : len / 3 * 3;
+    int s = srcOff;
+    int d = dstOff;
+    while (end - s >= 3) {
+      int n = Math.min(lineBytes, (end - s) / 3 * 3);
+      encodeGroups(src, s, n, dst, d, alphabet);
+      s += n;
+      d += n / 3 * 4;
+      if (wrap > 0 && n == lineBytes && s < end) {
+        for (byte b : separator) {
+          dst[d++] = b;
+        }
+      }
+    }
+    int remains = end - s;
+    if (remains > 0) {
+      int bits = (0xFF & src[s]) << 16 | (remains == 2 ? (0xFF & src[s + 1]) << 8 : 0);
+      dst[d++] = (byte) alphabet[0x3F & (bits >>> 18)];
+      dst[d++] = (byte) alphabet[0x3F & (bits >>> 12)];
+      if (remains == 2) {
+        dst[d++] = (byte) alphabet[0x3F & (bits >>> 6)];
+      } else if (padding) {
+        dst[d++] = (byte) ALPHABET_PAD;
+      }
+      if (padding) {
+        dst[d] = (byte) ALPHABET_PAD;
+      }
+    }
+  }
+
+  /* Encodes len bytes, a multiple of 3, without padding and line separators */
+  private static void encodeGroups(
+      byte[] src, int srcOff, int len, byte[] dst, int dstOff, char[] alphabet) {
+    int done = Base64Simd.encode(src, srcOff, len, dst, dstOff, alphabet);
+    int s = srcOff + done;
+    int d = dstOff + done / 3 * 4;
+    final int end = srcOff + len;
+    final char[] pairs = pairsOf(alphabet);
+    while (s < end) {
+      int bits = (0xFF & src[s]) << 16 | (0xFF & src[s + 1]) << 8 | (0xFF & src[s + 2]);
+      int pair1 = pairs[bits >>> 12];
+      int pair2 = pairs[0xFFF & bits];
+      dst[d] = (byte) (pair1 >>> 8);
+      dst[d + 1] = (byte) pair1;
+      dst[d + 2] = (byte) (pair2 >>> 8);
+      dst[d + 3] = (byte) pair2;
+      s += 3;
+      d += 4;
+    }
+  }
+
+  private static void encode(
+      ByteBuffer src,
+      int srcOff,
+      int len,
+      ByteBuffer dst,
+      int dstOff,
+      char[] alphabet,
+      boolean padding,
+      int wrap) {
+    int loopCount = len / 3;
+    int remains = len - loopCount * 3;
+    int s = srcOff;
+    int d = dstOff;
+    int iWrap = 0;
+    final char[] pairs = pairsOf(alphabet);
+    for (int i = 0; i < loopCount; i++) {
+      int bits = (0xFF & src.get(s)) << 16 | (0xFF & src.get(s + 1)) << 8 | (0xFF & src.get(s + 2));
+      int pair1 = pairs[bits >>> 12];
+      int pair2 = pairs[0xFFF & bits];
+      dst.put(d, (byte) (pair1 >>> 8));
+      dst.put(d + 1, (byte) pair1);
+      dst.put(d + 2, (byte) (pair2 >>> 8));
+      dst.put(d + 3, (byte) pair2);
+      s += 3;
+      d += 4;
+      if (wrap > 0 && ++iWrap == wrap && (i + 1 < loopCount || remains > 0)) {
+        dst.put(d++, (byte) LINE_SEPARATOR[0]);
+        dst.put(d++, (byte) LINE_SEPARATOR[1]);
+        iWrap = 0;
+      }
+    }
+    if (remains > 0) {
+      int bits = (0xFF & src.get(s)) << 16 | (remains == 2 ? (0xFF & src.get(s + 1)) << 8 : 0);
+      dst.put(d++, (byte) alphabet[0x3F & (bits >>> 18)]);
+      dst.put(d++, (byte) alphabet[0x3F & (bits >>> 12)]);
+      if (remains == 2) {
+        dst.put(d++, (byte) alphabet[0x3F & (bits >>> 6)]);
+      } else if (padding) {
+        dst.put(d++, (byte) ALPHABET_PAD);
+      }
+      if (padding) {
+        dst.put(d, (byte) ALPHABET_PAD);
+      }
+    }
+  }
+
+  /**
+   * Encodes into ASCII bytes and builds the String from them with {@link Radix#ascii}, with no
+   * UTF-16 {@code char[]} in between and no charset decoder.
+   */
+  private static String encodeToAscii(byte[] bytes, char[] alphabet, boolean padding, int wrap) {
+    if (bytes == null || bytes.length <= 0) {
+      return "";
+    }
+    byte[] ascii = new byte[encodedLength(bytes.length, padding, wrap)];
+    encode(bytes, 0, bytes.length, ascii, 0, alphabet, padding, wrap);
+    return Radix.ascii(ascii);
+  }
+
+  private static int encode(
+      byte[] bytes, Appendable out, char[] alphabet, boolean padding, int wrap)
+      throws IOException {
+    final int loopCount = bytes.length / 3;
+    final int remains = bytes.length - loopCount * 3;
+    int count = 0;
+    int iWrap = 0;
+    int s = 0;
+    for (int i = 0; i < loopCount; i++) {
+      int bits = (0xFF & bytes[s]) << 16 | (0xFF & bytes[s + 1]) << 8 | (0xFF & bytes[s + 2]);
+      out.append(alphabet[0x3F & (bits >>> 18)]);
+      out.append(alphabet[0x3F & (bits >>> 12)]);
+      out.append(alphabet[0x3F & (bits >>> 6)]);
+      out.append(alphabet[0x3F & bits]);
+      s += 3;
+      count += 4;
+      if (wrap > 0 && ++iWrap == wrap && (i + 1 < loopCount || remains > 0)) {
+        out.append(LINE_SEPARATOR[0]);
+        out.append(LINE_SEPARATOR[1]);
+        count += 2;
+        iWrap = 0;
+      }
+    }
+    if (remains > 0) {
+      int bits = (0xFF & bytes[s]) << 16 | (remains == 2 ? (0xFF & bytes[s + 1]) << 8 : 0);
+      out.append(alphabet[0x3F & (bits >>> 18)]);
+      out.append(alphabet[0x3F & (bits >>> 12)]);
+      count += 2;
+      if (remains == 2) {
+        out.append(alphabet[0x3F & (bits >>> 6)]);
+        count++;
+      } else if (padding) {
+        out.append(ALPHABET_PAD);
+        count++;
+      }
+      if (padding) {
+        out.append(ALPHABET_PAD);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static char[] encode(byte[] bytes, char[] alphabet, boolean padding, int wrap) {
+    if (bytes == null || bytes.length <= 0) {
+      return EMPTY_CHARS;
+    }
+    char[] chars = new char[encodedLength(bytes.length, padding, wrap)];
+    encode(bytes, 0, bytes.length, chars, 0, alphabet, padding, wrap);
+    return chars;
+  }
+
+  private static void encode(
+      byte[] src,
+      int srcOff,
+      int len,
+      char[] dst,
+      int dstOff,
+      char[] alphabet,
+      boolean padding,
+      int wrap) {
+    int loopCount = len / 3;
+    int remains = len - loopCount * 3;
+    int s = srcOff;
+    int d = dstOff;
+    int iWrap = 0;
+    final char[] pairs = pairsOf(alphabet);
+    for (int i = 0; i < loopCount; i++) {
+      int bits = (0xFF & src[s]) << 16 | (0xFF & src[s + 1]) << 8 | (0xFF & src[s + 2]);
+      int pair1 = pairs[bits >>> 12];
+      int pair2 = pairs[0xFFF & bits];
+      dst[d] = (char) (pair1 >>> 8);
+      dst[d + 1] = (char) (0xFF & pair1);
+      dst[d + 2] = (char) (pair2 >>> 8);
+      dst[d + 3] = (char) (0xFF & pair2);
+      s += 3;
+      d += 4;
+      if (wrap > 0 && ++iWrap == wrap && (i + 1 < loopCount || remains > 0)) {
+        dst[d++] = LINE_SEPARATOR[0];
+        dst[d++] = LINE_SEPARATOR[1];
+        iWrap = 0;
+      }
+    }
+    if (remains > 0) {
+      int bits = (0xFF & src[s]) << 16 | (remains == 2 ? (0xFF & src[s + 1]) << 8 : 0);
+      dst[d++] = alphabet[0x3F & (bits >>> 18)];
+      dst[d++] = alphabet[0x3F & (bits >>> 12)];
+      if (remains == 2) {
+        dst[d++] = alphabet[0x3F & (bits >>> 6)];
+      } else if (padding) {
+        dst[d++] = ALPHABET_PAD;
+      }
+      if (padding) {
+        dst[d] = ALPHABET_PAD;
+      }
+    }
+  }
+
+  /**
+   * Returns the 12-bit pair table of the alphabet. Every entry holds the two ASCII characters of a
+   * 12-bit group, high byte first, so a quad is emitted with two loads instead of four.
+   */
+  private static char[] pairsOf(char[] alphabet) {
+    return alphabet == ALPHABET_URL_SAFE ? UrlSafePairs.TABLE : BasicPairs.TABLE;
+  }
+
+  private static byte[] decodeNow(final byte[] src) {
+    byte[] result = new byte[decodedLength(maxSignificant(new InputByteArray(src)))];
+    return decodeFinish(
+        result, decodeBytes(src, 0, src.length, result, result.length, 0L, DECODE_MAP, null, 0L));
+  }
+
+  /**
+   * Decodes the bytes of {@code src} in [from, to) with the decode map and returns the new
+   * decoding state, packed as described in {@link #decodeChars}. The SIMD kernel is given the
+   * alphabet of the map, or {@code null} for the map of both alphabets, and stores nothing at or
+   * after {@code limit}. The caller makes sure that the decoded bytes fit below {@code limit}.
+   * {@code base} is the position of {@code src[0]} in the whole input, only used for error
+   * messages.
+   */
+  private static long decodeBytes(
+      final byte[] src,
+      final int from,
+      final int to,
+      final byte[] dst,
+      final int limit,
+      final long state,
+      final int[] map,
+      final char[] alphabet,
+      final long base) {
+    int i = from;
+    int offset = (int) (state >>> 32);
+    int charCount = (int) state >>> 24;
+    int bits = (int) state & 0xFFFFFF;
+    final int wordEnd = to - 8;
+    while (i < to) {
+      if (charCount == 0) {
+        while (true) {
+          int n = Base64Simd.decode(src, i, to - i, dst, offset, limit, alphabet);
+          i += n;
+          offset += n / 4 * 3;
+          while (i <= wordEnd) {
+            long word = decodeWord(src, i, map);
+            if (word < 0) {
+              break;
+            }
+            dst[offset] = (byte) (word >>> 40);
+            dst[offset + 1] = (byte) (word >>> 32);
+            dst[offset + 2] = (byte) (word >>> 24);
+            dst[offset + 3] = (byte) (word >>> 16);
+            dst[offset + 4] = (byte) (word >>> 8);
+            dst[offset + 5] = (byte) word;
+            offset += 6;
+            i += 8;
+          }
+          int quad = i + 4 <= to ? decodeQuad(src, i, map) : -1;
+          if (quad >= 0) {
+            dst[offset] = (byte) (quad >>> 16);
+            dst[offset + 1] = (byte) (quad >>> 8);
+            dst[offset + 2] = (byte) quad;
+            offset += 3;
+            i += 4;
+          }
+          int separator = lineSeparatorAt(src, i, to, map);
+          if (separator == 0) {
+            break;
+          }
+          i += separator;
+        }
+        if (i >= to) {
+          break;
+        }
+      }
+      int ch = src[i++];
+      int c = ch < 9 || ch > 123 ? Radix.INVALID : map[ch];
+      if (c < 0) {
+        if (c == Radix.INVALID) {
+          throw new IllegalArgumentException(
+              "Invalid base64 character '" + ch + "' at position " + (base + i));
+        }
+        continue;
+      }
+      bits = bits << 6 | c;
+      if (++charCount == 4) {
+        dst[offset] = (byte) (bits >>> 16);
+        dst[offset + 1] = (byte) (bits >>> 8);
+        dst[offset + 2] = (byte) bits;
+        offset += 3;
+        charCount = 0;
+        bits = 0;
+      }
+    }
+    return (long) offset << 32 | charCount << 24 | bits;
+  }
+
+  private static byte[] decodeNow(final char[] src) {
+    byte[] result = new byte[decodedLength(maxSignificant(new InputCharArray(src)))];
+    return decodeFinish(result, decodeChars(src, 0, src.length, 0, result, 0L, DECODE_MAP));
+  }
+
+  private static byte[] decodeNow(final CharSequence s) {
+    byte[] result = new byte[decodedLength(maxSignificant(new InputCharSeq(s)))];
+    return decodeFinish(result, decodeSeq(s, s.length(), result, DECODE_MAP));
+  }
+
+  /**
+   * Decodes the first {@code len} characters of a char sequence through the char window of the
+   * thread, so that the decode loop works on an array like the other inputs. {@link
+   * String#getChars} copies the window with a single intrinsic, which inflates the Latin-1 bytes of
+   * a compact String without a bounds check per character.
+   */
+  private static long decodeSeq(
+      final CharSequence s, final int len, final byte[] dst, final int[] map) {
+    final char[] window = DECODE_WINDOWS.get();
+    long state = 0L;
+    for (int from = 0; from < len; from += window.length) {
+      final int n = Math.min(window.length, len - from);
+      if (s instanceof String) {
+        ((String) s).getChars(from, from + n, window, 0);
+      } else {
+        for (int k = 0; k < n; k++) {
+          window[k] = s.charAt(from + k);
+        }
+      }
+      state = decodeChars(window, 0, n, from, dst, state, map);
+    }
+    return state;
+  }
+
+  /**
+   * Decodes the characters of {@code src} in [from, to) with the decode map and returns the new
+   * decoding state.
+   *
+   * <p>The state packs the output offset in the high 32 bits, the count of pending characters in
+   * bits 24 to 25 and their 6-bit values below, so that a char sequence is decoded window by
+   * window with the same loop. {@code base} is the position of {@code src[0]} in the whole input,
+   * only used for error messages.
+   */
+  private static long decodeChars(
+      final char[] src,
+      final int from,
+      final int to,
+      final int base,
+      final byte[] dst,
+      final long state,
+      final int[] map) {
+    int i = from;
+    int offset = (int) (state >>> 32);
+    int charCount = (int) state >>> 24;
+    int bits = (int) state & 0xFFFFFF;
+    final int wordEnd = to - 8;
+    while (i < to) {
+      if (charCount == 0) {
+        while (true) {
+          while (i <= wordEnd) {
+            long word = decodeWord(src, i, map);
+            if (word < 0) {
+              break;
+            }
+            dst[offset] = (byte) (word >>> 40);
+            dst[offset + 1] = (byte) (word >>> 32);
+            dst[offset + 2] = (byte) (word >>> 24);
+            dst[offset + 3] = (byte) (word >>> 16);
+            dst[offset + 4] = (byte) (word >>> 8);
+            dst[offset + 5] = (byte) word;
+            offset += 6;
+            i += 8;
+          }
+          int quad = i + 4 <= to ? decodeQuad(src, i, map) : -1;
+          if (quad >= 0) {
+            dst[offset] = (byte) (quad >>> 16);
+            dst[offset + 1] = (byte) (quad >>> 8);
+            dst[offset + 2] = (byte) quad;
+            offset += 3;
+            i += 4;
+          }
+          int separator = lineSeparatorAt(src, i, to, map);
+          if (separator == 0) {
+            break;
+          }
+          i += separator;
+        }
+        if (i >= to) {
+          break;
+        }
+      }
+      int ch = src[i++];
+      int c = ch < 9 || ch > 123 ? Radix.INVALID : map[ch];
+      if (c < 0) {
+        if (c == Radix.INVALID) {
+          throw new IllegalArgumentException(
+              "Invalid base64 character '" + ch + "' at position " + (base + i));
+        }
+        continue;
+      }
+      bits = bits << 6 | c;
+      if (++charCount == 4) {
+        dst[offset] = (byte) (bits >>> 16);
+        dst[offset + 1] = (byte) (bits >>> 8);
+        dst[offset + 2] = (byte) bits;
+        offset += 3;
+        charCount = 0;
+        bits = 0;
+      }
+    }
+    return (long) offset << 32 | charCount << 24 | bits;
+  }
+
+  private static byte[] decodeFinish(final byte[] result, final long state) {
+    final int offset = decodeTail(result, state);
+    return offset == result.length ? result : Arrays.copyOf(result, offset);
+  }
+
+  /* Writes the bytes of the last partial quad and returns the offset after the decoded bytes */
+  private static int decodeTail(final byte[] dst, final long state) {
+    int offset = (int) (state >>> 32);
+    int charCount = (int) state >>> 24;
+    int bits = (int) state & 0xFFFFFF;
+    if (charCount == 3) {
+      dst[offset++] = (byte) (bits >>> 10);
+      dst[offset++] = (byte) (bits >>> 2);
+    } else if (charCount == 2) {
+      dst[offset++] = (byte) (bits >>> 4);
+    } else if (charCount == 1) {
+      throw new IllegalArgumentException("Illegal base64 character count");
+    }
+    return offset;
+  }
+
+  /**
+   * Decodes the bytes of {@code src} in [from, to) into {@code dst} below {@code limit} with
+   * absolute gets and puts, and returns the new decoding state, packed as described in {@link
+   * #decodeChars}. Eight bytes are read at once while they are all in the alphabet, if both
+   * buffers are big endian. {@code base} is the position of {@code src[from]} in the whole input,
+   * only used for error messages.
+   */
+  private static long decodeBuffer(
+      final ByteBuffer src,
+      final int from,
+      final int to,
+      final ByteBuffer dst,
+      final int limit,
+      final long state,
+      final long base) {
+    int offset = (int) (state >>> 32);
+    int charCount = (int) state >>> 24;
+    int bits = (int) state & 0xFFFFFF;
+    int i = from;
+    final int wordEnd =
+        src.order() == ByteOrder.BIG_ENDIAN && dst.order() == ByteOrder.BIG_ENDIAN ? to - 8 : -1;
+    while (i < to) {
+      if (charCount == 0) {
+        while (i <= wordEnd && offset + 6 <= limit) {
+          long word = decodeWord(src.getLong(i));
+          if (word < 0) {
+            break;
+          }
+          dst.putInt(offset, (int) (word >>> 16));
+          dst.putShort(offset + 4, (short) word);
+          offset += 6;
+          i += 8;
+        }
+        if (i >= to) {
+          break;
+        }
+      }
+      int ch = src.get(i++);
+      if (ch < 9 || ch > 123) {
+        throw new IllegalArgumentException(
+            "Invalid base64 character '" + ch + "' at position " + (base + i - from));
+      }
+      int c = DECODE_MAP[ch];
+      if (c < 0) {
+        continue;
+      }
+      bits = bits << 6 | c;
+      if (++charCount == 4) {
+        if (offset + 3 > limit) {
+          throw new IllegalArgumentException("Not enough space in the destination buffer");
+        }
+        dst.put(offset, (byte) (bits >>> 16));
+        dst.put(offset + 1, (byte) (bits >>> 8));
+        dst.put(offset + 2, (byte) bits);
+        offset += 3;
+        bits = 0;
+        charCount = 0;
+      }
+    }
+    return (long) offset << 32 | charCount << 24 | bits;
+  }
+
+  private static int decodeTail(final ByteBuffer dst, final int limit, final long state) {
+    int offset = (int) (state >>> 32);
+    int charCount = (int) state >>> 24;
+    int bits = (int) state & 0xFFFFFF;
+    if (charCount == 1) {
+      throw new IllegalArgumentException("Illegal base64 character count");
+    }
+    if (charCount > 1 && offset + charCount - 1 > limit) {
+      throw new IllegalArgumentException("Not enough space in the destination buffer");
+    }
+    if (charCount == 3) {
+      dst.put(offset++, (byte) (bits >>> 10));
+      dst.put(offset++, (byte) (bits >>> 2));
+    } else if (charCount == 2) {
+      dst.put(offset++, (byte) (bits >>> 4));
+    }
+    return offset;
+  }
+
+  /**
+   * Counts the characters of the first {@code len} bytes of a big endian buffer that carry bits,
+   * eight at a time while all of them do. Invalid characters are not counted, they are left for
+   * the decode loop to report.
+   */
+  private static int significant(final ByteBuffer src, final int len) {
+    int count = 0;
+    int i = 0;
+    while (i < len) {
+      if (i + 8 <= len && decodeWord(src.getLong(i)) >= 0) {
+        count += 8;
+        i += 8;
+        continue;
+      }
+      int ch = src.get(i++);
+      if (ch >= 9 && ch <= 123 && DECODE_MAP[ch] >= 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /* Decodes the 8 big endian bytes of a word the same way as decodeWord of a byte array */
+  private static long decodeWord(final long w) {
+    if ((w & 0x8080808080808080L) != 0) {
+      return -1L;
+    }
+    return (long) DECODE_MAP[(int) (w >>> 56)] << 42
+        | (long) DECODE_MAP[0x7F & (int) (w >>> 48)] << 36
+        | (long) DECODE_MAP[0x7F & (int) (w >>> 40)] << 30
+        | (long) DECODE_MAP[0x7F & (int) (w >>> 32)] << 24
+        | (long) DECODE_MAP[0x7F & (int) (w >>> 24)] << 18
+        | (long) DECODE_MAP[0x7F & (int) (w >>> 16)] << 12
+        | (long) DECODE_MAP[0x7F & (int) (w >>> 8)] << 6
+        | (long) DECODE_MAP[0x7F & (int) w];
+  }
+
+  /**
+   * Returns an upper bound of the significant character count without looking at every character.
+   *
+   * <p>Trailing padding and white spaces are left out, and so are the line separators of a regular
+   * RFC 2045 layout, checked only at the positions where they are expected. The bound is exact for
+   * single line input and for the output of {@link #encodeToMime}, so the result array does not
+   * need to be copied for them.
+   */
+  private static int maxSignificant(final Base64Input s) {
+    int end = s.size();
+    while (end > 0) {
+      int ch = s.byteAt(end - 1);
+      if (ch < 9 || ch > 123 || DECODE_MAP[ch] >= 0) {
+        break;
+      }
+      end--;
+    }
+    int separators = 0;
+    for (int i = MIME_LINE_LENGTH; i + 1 < end; i += MIME_LINE_LENGTH + 2) {
+      if (s.byteAt(i) != LINE_SEPARATOR[0] || s.byteAt(i + 1) != LINE_SEPARATOR[1]) {
+        break;
+      }
+      separators += 2;
+    }
+    return end - separators;
+  }
+
+  private static int decodedLength(int significant) {
+    int remains = significant & 3;
+    return (significant >>> 2) * 3 + (remains > 1 ? remains - 1 : 0);
+  }
+
+  private static int decodedLength(final Base64Input s) {
+    final int len = s.size();
+    int count = 0;
+    for (int i = 0; i < len; i++) {
+      int ch = s.byteAt(i);
+      if (ch < 9 || ch > 123) {
+        throw new IllegalArgumentException(
+            "Invalid base64 character '" + ch + "' at position " + (i + 1));
+      }
+      if (DECODE_MAP[ch] >= 0) {
+        count++;
+      }
+    }
+    if ((count & 3) == 1) {
+      throw new IllegalArgumentException("Illegal base64 character count");
+    }
+    return decodedLength(count);
+  }
+
+  /**
+   * Decodes 8 characters into the low 48 bits of a word, 6 bits per character.
+   *
+   * <p>Any character that is not in the alphabet yields a negative decode map entry, and
+   * a negative entry shifted into the word keeps the sign bit set. So a single sign test on the
+   * result tells whether all 8 characters were valid, and the caller falls back to the per
+   * character loop for white spaces, line separators, padding and invalid input.
+   */
+  private static long decodeWord(final byte[] s, final int i, final int[] map) {
+    final int c0 = s[i];
+    final int c1 = s[i + 1];
+    final int c2 = s[i + 2];
+    final int c3 = s[i + 3];
+    final int c4 = s[i + 4];
+    final int c5 = s[i + 5];
+    final int c6 = s[i + 6];
+    final int c7 = s[i + 7];
+    if (((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) & ~0x7F) != 0) {
+      return -1L;
+    }
+    return (long) map[c0] << 42
+        | (long) map[c1] << 36
+        | (long) map[c2] << 30
+        | (long) map[c3] << 24
+        | (long) map[c4] << 18
+        | (long) map[c5] << 12
+        | (long) map[c6] << 6
+        | (long) map[c7];
+  }
+
+  /* Same as the byte array version, a char above 0x7F also fails the sign test */
+  private static long decodeWord(final char[] s, final int i, final int[] map) {
+    final int c0 = s[i];
+    final int c1 = s[i + 1];
+    final int c2 = s[i + 2];
+    final int c3 = s[i + 3];
+    final int c4 = s[i + 4];
+    final int c5 = s[i + 5];
+    final int c6 = s[i + 6];
+    final int c7 = s[i + 7];
+    if (((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) & ~0x7F) != 0) {
+      return -1L;
+    }
+    return (long) map[c0] << 42
+        | (long) map[c1] << 36
+        | (long) map[c2] << 30
+        | (long) map[c3] << 24
+        | (long) map[c4] << 18
+        | (long) map[c5] << 12
+        | (long) map[c6] << 6
+        | (long) map[c7];
+  }
+
+  /**
+   * Decodes 4 characters into the low 24 bits, or returns a negative value if any of them is not
+   * in the alphabet. It takes the quad in front of a line separator when the line length is not a
+   * multiple of 8, as the 76 characters of RFC 2045 lines.
+   */
+  private static int decodeQuad(final byte[] s, final int i, final int[] map) {
+    final int c0 = s[i];
+    final int c1 = s[i + 1];
+    final int c2 = s[i + 2];
+    final int c3 = s[i + 3];
+    if (((c0 | c1 | c2 | c3) & ~0x7F) != 0) {
+      return -1;
+    }
+    return map[c0] << 18 | map[c1] << 12 | map[c2] << 6 | map[c3];
+  }
+
+  private static int decodeQuad(final char[] s, final int i, final int[] map) {
+    final int c0 = s[i];
+    final int c1 = s[i + 1];
+    final int c2 = s[i + 2];
+    final int c3 = s[i + 3];
+    if (((c0 | c1 | c2 | c3) & ~0x7F) != 0) {
+      return -1;
+    }
+    return map[c0] << 18 | map[c1] << 12 | map[c2] << 6 | map[c3];
+  }
+
+  /**
+   * Returns the length of the "\r\n" or "\n" line separator at {@code i}, or 0 if there is none or
+   * the decode map does not ignore line separators. This lets the fast steps of a decode loop
+   * resume right after a line of regular layout, so only other white spaces go through the per
+   * character step.
+   */
+  private static int lineSeparatorAt(final byte[] s, final int i, final int to, final int[] map) {
+    if (map['\n'] == Radix.INVALID) {
+      return 0;
+    }
+    if (i < to && s[i] == '\n') {
+      return 1;
+    }
+    return i + 1 < to && s[i] == '\r' && s[i + 1] == '\n' ? 2 : 0;
+  }
+
+  private static int lineSeparatorAt(final char[] s, final int i, final int to, final int[] map) {
+    if (map['\n'] == Radix.INVALID) {
+      return 0;
+    }
+    if (i < to && s[i] == '\n') {
+      return 1;
+    }
+    return i + 1 < to && s[i] == '\r' && s[i + 1] == '\n' ? 2 : 0;
+  }
+
+  /**
+   * Immutable Base 64 encoder, configured once with its alphabet, padding, line length and line
+   * separator. Instances are thread safe and are meant to be kept in static fields, for example one
+   * per endpoint.
+   *
+   * @see #encoder()
+   * @see #urlEncoder()
+   * @see #mimeEncoder()
+   * @since 1.3
+   */
+  public static final class Encoder {
+
+    private static final Encoder BASIC = new Encoder(ALPHABET_BASIC, true, 0, CRLF);
+    private static final Encoder URL_SAFE = new Encoder(ALPHABET_URL_SAFE, true, 0, CRLF);
+    private static final Encoder MIME = new Encoder(ALPHABET_BASIC, true, MIME_WRAP, CRLF);
+
+    private final char[] alphabet;
+    private final boolean padding;
+    private final int wrap;
+    private final byte[] separator;
+
+    private Encoder(char[] alphabet, boolean padding, int wrap, byte[] separator) {
+      this.alphabet = alphabet;
+      this.padding = padding;
+      this.wrap = wrap;
+      this.separator = separator;
+    }
+
+    /**
+     * Returns an encoder like this one that does not write the padding characters.
+     *
+     * @return Encoder without padding
+     */
+    public Encoder withoutPadding() {
+      return padding ? new Encoder(alphabet, false, wrap, separator) : this;
+    }
+
+    /**
+     * Returns an encoder like this one with another line length. The length is rounded down to a
+     * multiple of 4, and the output is not split into lines if it is less than 4.
+     *
+     * @param lineLength Max characters of each line
+     * @return Encoder with the line length
+     */
+    public Encoder withLineLength(final int lineLength) {
+      final int quads = lineLength >= 4 ? lineLength >>> 2 : 0;
+      return quads == wrap ? this : new Encoder(alphabet, padding, quads, separator);
+    }
+
+    /**
+     * Returns an encoder like this one with another line separator, which takes effect when the
+     * line length is set.
+     *
+     * @param separator Non empty line separator of characters that decoding ignores, such as
+     *     "\n"
+     * @return Encoder with the line separator
+     * @exception IllegalArgumentException If the separator is empty or has a character that is
+     *     neither a white space nor a control character
+     */
+    public Encoder withLineSeparator(final String separator) {
+      if (separator.isEmpty()) {
+        throw new IllegalArgumentException("The line separator is empty");
+      }
+      final byte[] bytes = new byte[separator.length()];
+      for (int i = 0; i < bytes.length; i++) {
+        char ch = separator.charAt(i);
+        if (ch < 9 || ch > ' ') {
+          throw new IllegalArgumentException(
+              "Illegal line separator character '" + (int) ch + "' at position " + (i + 1));
+        }
+        bytes[i] = (byte) ch;
+      }
+      return new Encoder(alphabet, padding, wrap, bytes);
+    }
+
+    /**
+     * Calculates the exact number of ASCII bytes or characters this encoder writes for {@code len}
+     * input bytes.
+     *
+     * @param len Count of input bytes
+     * @return Count of encoded bytes
+     * @exception IllegalArgumentException If {@code len} is negative or the result is too large
+     */
+    public int encodedLength(final int len) {
+      if (len < 0) {
+        throw new IllegalArgumentException("The len argument is negative");
+      }
+      return Base64.encodedLength(len, padding, wrap, separator.length);
+    }
+
+    /**
+     * Encodes the bytes into ASCII bytes.
+     *
+     * @param src Byte array as input
+     * @return Base64 encoded ASCII bytes as output
+     */
+    public byte[] encode(final byte[] src) {
+      if (src == null || src.length <= 0) {
+        return EMPTY_BYTES;
+      }
+      final byte[] ascii = new byte[encodedLength(src.length)];
+      Base64.encode(src, 0, src.length, ascii, 0, alphabet, padding, wrap, separator);
+      return ascii;
+    }
+
+    /**
+     * Encodes {@code len} bytes of {@code src} from {@code srcOff} into {@code dst} as ASCII bytes
+     * from {@code dstOff}.
+     *
+     * @param src Byte array as input
+     * @param srcOff Index of the first input byte
+     * @param len Count of input bytes
+     * @param dst Byte array where the ASCII output is written to
+     * @param dstOff Index where the first output byte is written to
+     * @return Count of bytes written
+     * @exception IllegalArgumentException If a range is out of bounds or {@code dst} is too small
+     */
+    public int encode(
+        final byte[] src, final int srcOff, final int len, final byte[] dst, final int dstOff) {
+      Radix.checkRange(src.length, srcOff, len, "source");
+      final int count = encodedLength(len);
+      Radix.checkRange(dst.length, dstOff, count, "destination");
+      Base64.encode(src, srcOff, len, dst, dstOff, alphabet, padding, wrap, separator);
+      return count;
+    }
+
+    /**
+     * Encodes the bytes into a String.
+     *
+     * @param src Byte array as input
+     * @return Base64 encoded String as output
+     */
+    public String encodeToString(final byte[] src) {
+      if (src == null || src.length <= 0) {
+        return "";
+      }
+      return Radix.ascii(encode(src));
+    }
+  }
+
+  /**
+   * Immutable Base 64 decoder of a single alphabet, with its decode table built once. Instances
+   * are thread safe and are meant to be kept in static fields.
+   *
+   * <p>A lenient decoder ignores padding, white spaces and line separators, as {@link
+   * #decode(byte[])} does. A {@link #strict()} decoder accepts nothing but the characters of its
+   * alphabet, optionally followed by the padding that completes the last quad.
+   *
+   * @see #decoder()
+   * @see #urlDecoder()
+   * @since 1.3
+   */
+  public static final class Decoder {
+
+    private static final Decoder BASIC = new Decoder(ALPHABET_BASIC, false);
+    private static final Decoder URL_SAFE = new Decoder(ALPHABET_URL_SAFE, false);
+    private static final Decoder BASIC_STRICT = new Decoder(ALPHABET_BASIC, true);
+    private static final Decoder URL_SAFE_STRICT = new Decoder(ALPHABET_URL_SAFE, true);
+
+    private final char[] alphabet;
+    private final boolean strict;
+    private final int[] map;
+
+    private Decoder(char[] alphabet, boolean strict) {
+      this.alphabet = alphabet;
+      this.strict = strict;
+      this.map = decodeMap(alphabet, strict);
+    }
+
+    /**
+     * Returns the strict decoder of the same alphabet.
+     *
+     * @return Shared strict {@link Decoder} instance
+     */
+    public Decoder strict() {
+      return alphabet == ALPHABET_URL_SAFE ? URL_SAFE_STRICT : BASIC_STRICT;
+    }
+
+    /**
+     * Parse Base 64 encoded bytes to byte array.
+     *
+     * @param src Base 64 encoded bytes
+     * @return Byte array as output
+     * @exception IllegalArgumentException If the input is not well formed for this decoder
+     */
+    public byte[] decode(final byte[] src) {
+      if (src == null || src.length <= 0) {
+        return EMPTY_BYTES;
+      }
+      final InputByteArray input = new InputByteArray(src);
+      final int end = strict ? unpadded(input) : src.length;
+      final byte[] result = new byte[decodedLength(strict ? end : maxSignificant(input))];
+      return decodeFinish(
+          result, decodeBytes(src, 0, end, result, result.length, 0L, map, alphabet, 0L));
+    }
+
+    /**
+     * Parse Base 64 encoded char array to byte array.
+     *
+     * @param src Base 64 encoded char array
+     * @return Byte array as output
+     * @exception IllegalArgumentException If the input is not well formed for this decoder
+     */
+    public byte[] decode(final char[] src) {
+      if (src == null || src.length <= 0) {
+        return EMPTY_BYTES;
+      }
+      final InputCharArray input = new InputCharArray(src);
+      final int end = strict ? unpadded(input) : src.length;
+      final byte[] result = new byte[decodedLength(strict ? end : maxSignificant(input))];
+      return decodeFinish(result, decodeChars(src, 0, end, 0, result, 0L, map));
+    }
+
+    /**
+     * Parse Base 64 encoded String to byte array.
+     *
+     * @param s Base 64 encoded String
+     * @return Byte array as output
+     * @exception IllegalArgumentException If the input is not well formed for this decoder
+     */
+    public byte[] decode(final CharSequence s) {
+      if (s == null || s.length() <= 0) {
+        return EMPTY_BYTES;
+      }
+      final InputCharSeq input = new InputCharSeq(s);
+      final int end = strict ? unpadded(input) : s.length();
+      final byte[] result = new byte[decodedLength(strict ? end : maxSignificant(input))];
+      return decodeFinish(result, decodeSeq(s, end, result, map));
+    }
+  }
+
+  /**
+   * Resumable Base 64 decoder for input that arrives in pieces, such as the reads of a non-blocking
+   * socket. It accepts what {@link #decode(byte[])} accepts.
+   *
+   * <p>Every decoded byte is written as soon as its last bit is known, so at most 3 sextets are
+   * carried from one {@link #update} to the next and {@link #finish()} writes nothing. No memory is
+   * allocated after construction, and {@link #finish()} makes the instance ready for the next
+   * input. Instances are not thread safe.
+   *
+   * @since 1.3
+   */
+  public static final class IncrementalDecoder {
+
+    private int bits;
+    private int charCount;
+    private int emitted;
+    private int consumed;
+    /* Count of input bytes consumed since the start of the input, for error positions */
+    private long position;
+
+    /**
+     * Decodes the next piece of the input into {@code dst} from {@code dstOff}. The input is
+     * consumed as far as its output fits in the rest of {@code dst}, which is all of it when the
+     * room is at least {@code len / 4 * 3 + 3} bytes. The content of {@code dst} after the
+     * produced bytes is unspecified. Error messages give positions from the start of the whole
+     * input, not of {@code src}.
+     *
+     * @param src Base 64 encoded ASCII bytes
+     * @param srcOff Index of the first input byte
+     * @param len Count of input bytes
+     * @param dst Byte array where the decoded bytes are written to
+     * @param dstOff Index where the first decoded byte is written to
+     * @return Count of bytes produced, see {@link #consumed()} for the count of bytes consumed
+     * @exception IllegalArgumentException If a range is out of bounds or the input is not well
+     *     formed Base 64
+     */
+    public int update(
+        final byte[] src, final int srcOff, final int len, final byte[] dst, final int dstOff) {
+      Radix.checkRange(src.length, srcOff, len, "source");
+      Radix.checkRange(dst.length, dstOff, 0, "destination");
+      return update(src, srcOff, len, dst, dstOff, dst.length);
+    }
+
+    /**
+     * Decodes the next piece of the input from the remaining bytes of {@code src} into {@code dst},
+     * as {@link #update(byte[], int, int, byte[], int)} does. Both buffers may be heap or direct
+     * buffers. The input is consumed as far as its output fits in the remaining space of
+     * {@code dst}, and the positions of both buffers are advanced by the bytes consumed and
+     * produced. The content of {@code dst} after its new position is unspecified.
+     *
+     * @param src Byte buffer of Base 64 encoded ASCII bytes
+     * @param dst Byte buffer where the decoded bytes are written to
+     * @return Count of bytes produced, see {@link #consumed()} for the count of bytes consumed
+     * @exception IllegalArgumentException If the input is not well formed Base 64
+     */
+    public int update(final ByteBuffer src, final ByteBuffer dst) {
+      final int srcPos = src.position();
+      final int dstPos = dst.position();
+      final int produced;
+      if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+        final int shift = dst.arrayOffset();
+        produced =
+            update(
+                src.array(),
+                src.arrayOffset() + srcPos,
+                src.remaining(),
+                dst.array(),
+                shift + dstPos,
+                shift + dst.limit());
+      } else {
+        final int end = src.limit();
+        final int fast = srcPos + limit(src.remaining(), dst.remaining());
+        final int dstEnd = dst.limit();
+        int s = srcPos;
+        int d = dstPos;
+        while (s < end) {
+          if (charCount == 0 && s < fast) {
+            final long base = position + s - srcPos;
+            long state = decodeBuffer(src, s, fast, dst, dstEnd, (long) d << 32, base);
+            d = (int) (state >>> 32);
+            charCount = (int) state >>> 24;
+            bits = (int) state & 0xFFFFFF;
+            emitted = 0;
+            d = emit(dst, d);
+            s = fast;
+            continue;
+          }
+          int ch = src.get(s);
+          int c = ch < 9 || ch > 123 ? Radix.INVALID : DECODE_MAP[ch];
+          if (c == Radix.INVALID) {
+            throw new IllegalArgumentException(
+                "Invalid base64 character '" + ch + "' at position " + (position + s + 1 - srcPos));
+          }
+          if (c >= 0) {
+            if (d + ((charCount + 1) * 6 >>> 3) - emitted > dstEnd) {
+              break;
+            }
+            bits = bits << 6 | c;
+            charCount++;
+            d = emit(dst, d);
+          }
+          s++;
+        }
+        consumed = s - srcPos;
+        position += consumed;
+        produced = d - dstPos;
+      }
+      ((Buffer) src).position(srcPos + consumed);
+      ((Buffer) dst).position(dstPos + produced);
+      return produced;
+    }
+
+    /**
+     * Decodes into {@code dst} below {@code dstEnd}, the ranges are checked by the caller. The
+     * input whose output surely fits goes through the fast kernels once the carried quad is
+     * complete, and the rest is taken character by character while its output fits.
+     */
+    private int update(
+        final byte[] src,
+        final int srcOff,
+        final int len,
+        final byte[] dst,
+        final int dstOff,
+        final int dstEnd) {
+      final int end = srcOff + len;
+      final int fast = srcOff + limit(len, dstEnd - dstOff);
+      int s = srcOff;
+      int d = dstOff;
+      while (s < end) {
+        if (charCount == 0 && s < fast) {
+          long state =
+              decodeBytes(
+                  src, s, fast, dst, dstEnd, (long) d << 32, DECODE_MAP, null, position - srcOff);
+          d = (int) (state >>> 32);
+          charCount = (int) state >>> 24;
+          bits = (int) state & 0xFFFFFF;
+          emitted = 0;
+          d = emit(dst, d);
+          s = fast;
+          continue;
+        }
+        int ch = src[s];
+        int c = ch < 9 || ch > 123 ? Radix.INVALID : DECODE_MAP[ch];
+        if (c == Radix.INVALID) {
+          throw new IllegalArgumentException(
+              "Invalid base64 character '" + ch + "' at position " + (position + s + 1 - srcOff));
+        }
+        if (c >= 0) {
+          if (d + ((charCount + 1) * 6 >>> 3) - emitted > dstEnd) {
+            break;
+          }
+          bits = bits << 6 | c;
+          charCount++;
+          d = emit(dst, d);
+        }
+        s++;
+      }
+      consumed = s - srcOff;
+      position += consumed;
+      return d - dstOff;
+    }
+
+    /* Count of input bytes whose output surely fits in room bytes with what is pending */
+    private int limit(final int len, final int room) {
+      final int pending = charCount * 6 - emitted * 8;
+      return (int) Math.min(len, ((long) room * 8 + 7 - pending) / 6);
+    }
+
+    /**
+     * Returns the count of input bytes consumed by the last {@link #update}.
+     *
+     * @return Count of bytes consumed
+     */
+    public int consumed() {
+      return consumed;
+    }
+
+    /**
+     * Ends the input. All decoded bytes have already been written by {@link #update}, so this only
+     * checks that the input did not end in the middle of a byte, then resets the decoder.
+     *
+     * @exception IllegalArgumentException If a single character is left over
+     */
+    public void finish() {
+      final boolean broken = charCount == 1;
+      bits = 0;
+      charCount = 0;
+      emitted = 0;
+      consumed = 0;
+      position = 0L;
+      if (broken) {
+        throw new IllegalArgumentException("Illegal base64 character count");
+      }
+    }
+
+    /* Writes the bytes of the current quad that are complete and not written yet */
+    private int emit(byte[] dst, int d) {
+      final int available = charCount * 6 >>> 3;
+      while (emitted < available) {
+        dst[d++] = (byte) (bits >>> (charCount * 6 - 8 * ++emitted));
+      }
+      if (charCount == 4) {
+        bits = 0;
+        charCount = 0;
+        emitted = 0;
+      }
+      return d;
+    }
+
+    /* Same as the byte array version with absolute puts */
+    private int emit(ByteBuffer dst, int d) {
+      final int available = charCount * 6 >>> 3;
+      while (emitted < available) {
+        dst.put(d++, (byte) (bits >>> (charCount * 6 - 8 * ++emitted)));
+      }
+      if (charCount == 4) {
+        bits = 0;
+        charCount = 0;
+        emitted = 0;
+      }
+      return d;
+    }
+  }
+
+  /**
+   * Builds the decode map of both alphabets. Every other ASCII character is skipped, so that white
+   * spaces, line separators and padding need no checks of their own.
+   */
+  private static int[] decodeMap() {
+    final int[] map = Radix.decodeMap(ALPHABET_BASIC, false);
+    map[ALPHABET_URL_SAFE[62]] = 62;
+    map[ALPHABET_URL_SAFE[63]] = 63;
+    for (int ch = 0; ch < 0x80; ch++) {
+      if (map[ch] == Radix.INVALID) {
+        map[ch] = Radix.SKIP;
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Builds the decode map of a single alphabet. The characters of the alphabet map to their
+   * values. A lenient map skips what {@link #DECODE_MAP} skips and rejects the rest, a strict map
+   * rejects everything else.
+   */
+  private static int[] decodeMap(final char[] alphabet, final boolean strict) {
+    final int[] map = Radix.decodeMap(alphabet, false);
+    for (int ch = 0; !strict && ch < 0x80; ch++) {
+      if (DECODE_MAP[ch] == Radix.SKIP) {
+        map[ch] = Radix.SKIP;
+      }
+    }
+    return map;
+  }
+
+  /* Returns the length without the trailing padding, which must make the length a multiple of 4 */
+  private static int unpadded(final Base64Input s) {
+    final int len = s.size();
+    int end = len;
+    while (end > 0 && len - end < 2 && s.byteAt(end - 1) == ALPHABET_PAD) {
+      end--;
+    }
+    if (end < len && (len & 3) != 0) {
+      throw new IllegalArgumentException("Illegal base64 padding");
+    }
+    return end;
+  }
+
+  private static final class EncodeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] src;
+    private final int from;
+    private final int to;
+    private final byte[] dst;
+    private final char[] alphabet;
+    private final boolean padding;
+    private final int wrap;
+
+    EncodeTask(
+        byte[] src, int from, int to, byte[] dst, char[] alphabet, boolean padding, int wrap) {
+      this.src = src;
+      this.from = from;
+      this.to = to;
+      this.dst = dst;
+      this.alphabet = alphabet;
+      this.padding = padding;
+      this.wrap = wrap;
+    }
+
+    @Override
+    protected void compute() {
+      /* Splits at line boundaries so every part knows where its output starts */
+      int unit = wrap > 0 ? wrap * 3 : 3;
+      int mid = from + (to - from) / 2 / unit * unit;
+      if (to - from <= PARALLEL_GRAIN || mid == from) {
+        int d = from / 3 * 4 + (wrap > 0 ? from / unit * 2 : 0);
+        encode(src, from, to - from, dst, d, alphabet, padding, wrap);
+        if (wrap > 0 && to < src.length) {
+          d += (to - from) / 3 * 4 + ((to - from) / unit - 1) * 2;
+          dst[d] = (byte) LINE_SEPARATOR[0];
+          dst[d + 1] = (byte) LINE_SEPARATOR[1];
+        }
+        return;
+      }
+      invokeAll(
+          new EncodeTask(src, from, mid, dst, alphabet, padding, wrap),
+          new EncodeTask(src, mid, to, dst, alphabet, padding, wrap));
+    }
+  }
+
+  /**
+   * Counts the significant characters of every chunk in {@code starts} when {@code dst} is null,
+   * otherwise decodes the quads that start in every chunk. The result tells whether every chunk had
+   * as many significant characters as {@code starts} says, which is always the case after counting.
+   */
+  private static final class DecodeTask extends RecursiveTask<Boolean> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] src;
+    private final int[] starts;
+    private final byte[] dst;
+    private final int lo;
+    private final int hi;
+
+    DecodeTask(byte[] src, int[] starts, byte[] dst, int lo, int hi) {
+      this.src = src;
+      this.starts = starts;
+      this.dst = dst;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected Boolean compute() {
+      if (hi - lo > 1) {
+        int mid = (lo + hi) >>> 1;
+        DecodeTask left = new DecodeTask(src, starts, dst, lo, mid);
+        DecodeTask right = new DecodeTask(src, starts, dst, mid, hi);
+        invokeAll(left, right);
+        return left.join() && right.join();
+      }
+      int from = lo * PARALLEL_GRAIN;
+      int to = Math.min(src.length, (lo + 1) * PARALLEL_GRAIN);
+      if (dst == null) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+          if (significant(i)) {
+            count++;
+          }
+        }
+        starts[lo] = count;
+        return true;
+      }
+      return decode(from, to, starts[lo], starts[lo + 1]) == starts[lo + 1] - starts[lo];
+    }
+
+    private boolean significant(int i) {
+      int ch = src[i];
+      if (ch < 9 || ch > 123) {
+        throw new IllegalArgumentException(
+            "Invalid base64 character '" + ch + "' at position " + (i + 1));
+      }
+      return DECODE_MAP[ch] >= 0;
+    }
+
+    /**
+     * Decodes the quads with first significant character index in [first, last) with the fast
+     * kernels, and returns the count of significant characters in [from, to), or -1 if the input
+     * ends with a single character of a quad.
+     */
+    private int decode(int from, int to, int first, int last) {
+      int i = from;
+      int index = first;
+      /* The first characters belong to the last quad of the chunks before */
+      int skip = (4 - (first & 3)) & 3;
+      while (skip > 0 && i < to) {
+        if (significant(i++)) {
+          index++;
+          skip--;
+        }
+      }
+      if (i == to) {
+        return index - first;
+      }
+      /* The fast kernels store nothing in the range of the next chunk */
+      final int start = (index >>> 2) * 3;
+      final int limit = Math.min(dst.length, ((last + 3) >>> 2) * 3);
+      long state = decodeBytes(src, i, to, dst, limit, (long) start << 32, DECODE_MAP, null, 0L);
+      int offset = (int) (state >>> 32);
+      int charCount = (int) state >>> 24;
+      int bits = (int) state & 0xFFFFFF;
+      final int count = index - first + (offset - start) / 3 * 4 + charCount;
+      /* The last quad may end in the chunks after this one */
+      for (int j = to; charCount > 0 && charCount < 4 && j < src.length; j++) {
+        if (significant(j)) {
+          bits = bits << 6 | DECODE_MAP[src[j]];
+          charCount++;
+        }
+      }
+      if (charCount == 4) {
+        dst[offset] = (byte) (bits >>> 16);
+        dst[offset + 1] = (byte) (bits >>> 8);
+        dst[offset + 2] = (byte) bits;
+      } else if (charCount == 1) {
+        return -1;
+      } else {
+        decodeTail(dst, (long) offset << 32 | charCount << 24 | bits);
+      }
+      return count;
+    }
+  }
+
+  /* The pair tables are built on first use by the holder class idiom */
+  private static final class BasicPairs {
+
+    private static final char[] TABLE = Radix.pairs(ALPHABET_BASIC, 6);
+  }
+
+  private static final class UrlSafePairs {
+
+    private static final char[] TABLE = Radix.pairs(ALPHABET_URL_SAFE, 6);
   }
 
+  /* Only used by the cold length helpers, the decode loops are specialised per input type */
   private interface Base64Input {
 
     int size();
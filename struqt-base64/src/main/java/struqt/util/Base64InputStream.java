@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that reads Base 64 encoded ASCII bytes from the wrapped input stream in fixed-size
+ * chunks and returns the decoded bytes.
+ *
+ * <p>Up to 3 sextets of an incomplete quad are carried from one chunk to the next, so memory use
+ * does not depend on the length of the stream. Characters are accepted and ignored the same way as
+ * {@link Base64#decode(byte[])} does.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+final class Base64InputStream extends InputStream {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  private final InputStream in;
+  private final int[] decodeMap;
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+  private final byte[] decoded = new byte[CHUNK_SIZE / 4 * 3];
+  private int decodedOffset = 0;
+  private int decodedCount = 0;
+  private long position = 0;
+  private int bits = 0;
+  private int charCount = 0;
+  private boolean eof = false;
+  private boolean closed = false;
+
+  Base64InputStream(InputStream in, int[] decodeMap) {
+    if (in == null) {
+      throw new NullPointerException("The input stream argument is null");
+    }
+    this.in = in;
+    this.decodeMap = decodeMap;
+  }
+
+  @Override
+  public int read() throws IOException {
+    ensureOpen();
+    if (decodedOffset >= decodedCount && !fill()) {
+      return -1;
+    }
+    return 0xFF & decoded[decodedOffset++];
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    if (off < 0 || len < 0 || off + len < 0 || off + len > b.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (decodedOffset >= decodedCount && !fill()) {
+      return -1;
+    }
+    int n = Math.min(len, decodedCount - decodedOffset);
+    System.arraycopy(decoded, decodedOffset, b, off, n);
+    decodedOffset += n;
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    ensureOpen();
+    return decodedCount - decodedOffset;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      in.close();
+    }
+  }
+
+  /* Decodes the next chunk, returns false when no more decoded byte is available */
+  private boolean fill() throws IOException {
+    decodedOffset = 0;
+    decodedCount = 0;
+    while (decodedCount == 0 && !eof) {
+      int n = in.read(chunk, 0, CHUNK_SIZE);
+      if (n < 0) {
+        eof = true;
+        decodeTail();
+      } else {
+        decodeChunk(n);
+      }
+    }
+    return decodedCount > 0;
+  }
+
+  private void decodeChunk(int n) throws IOException {
+    int offset = 0;
+    for (int i = 0; i < n; i++) {
+      int ch = chunk[i];
+      if (ch < 9 || ch > 123) {
+        throw new IOException(
+            "Invalid base64 character '" + ch + "' at position " + (position + i + 1));
+      }
+      int c = decodeMap[ch];
+      if (c < 0) {
+        continue;
+      }
+      bits = bits << 6 | c;
+      if (++charCount == 4) {
+        decoded[offset] = (byte) (bits >>> 16);
+        decoded[offset + 1] = (byte) (bits >>> 8);
+        decoded[offset + 2] = (byte) bits;
+        offset += 3;
+        bits = 0;
+        charCount = 0;
+      }
+    }
+    position += n;
+    decodedCount = offset;
+  }
+
+  private void decodeTail() throws IOException {
+    if (charCount == 3) {
+      decoded[0] = (byte) (bits >>> 10);
+      decoded[1] = (byte) (bits >>> 2);
+      decodedCount = 2;
+    } else if (charCount == 2) {
+      decoded[0] = (byte) (bits >>> 4);
+      decodedCount = 1;
+    } else if (charCount == 1) {
+      throw new IOException("Illegal base64 character count");
+    }
+    charCount = 0;
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream is closed");
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that encodes the bytes written to it as Base 64 and passes the encoded ASCII bytes
+ * to the wrapped output stream in fixed-size chunks.
+ *
+ * <p>Up to 2 bytes of an incomplete 24-bit group are held between calls, and the line position is
+ * tracked across calls so RFC 2045 line wrapping is the same as {@link Base64#encodeToMime}. The
+ * padding and the final group are written by {@link #close()}.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+final class Base64OutputStream extends OutputStream {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  private final OutputStream out;
+  private final char[] alphabet;
+  private final boolean padding;
+  private final int wrap;
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+  private int chunkCount = 0;
+  private int bits = 0;
+  private int byteCount = 0;
+  private int iWrap = 0;
+  private boolean lineEnded = false;
+  private boolean closed = false;
+
+  Base64OutputStream(OutputStream out, char[] alphabet, boolean padding, int wrap) {
+    if (out == null) {
+      throw new NullPointerException("The output stream argument is null");
+    }
+    this.out = out;
+    this.alphabet = alphabet;
+    this.padding = padding;
+    this.wrap = wrap;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    bits = bits << 8 | (0xFF & b);
+    if (++byteCount == 3) {
+      encodeGroup();
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    if (off < 0 || len < 0 || off + len < 0 || off + len > b.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    int i = off;
+    int end = off + len;
+    while (byteCount > 0 && i < end) {
+      write(b[i++]);
+    }
+    for (int last = end - 2; i < last; i += 3) {
+      bits = (0xFF & b[i]) << 16 | (0xFF & b[i + 1]) << 8 | (0xFF & b[i + 2]);
+      encodeGroup();
+    }
+    while (i < end) {
+      write(b[i++]);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    flushChunk();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      if (byteCount > 0) {
+        writeSeparatorIfNeeded();
+        int group = bits << (byteCount == 1 ? 16 : 8);
+        chunk[chunkCount++] = (byte) alphabet[0x3F & (group >>> 18)];
+        chunk[chunkCount++] = (byte) alphabet[0x3F & (group >>> 12)];
+        if (byteCount == 2) {
+          chunk[chunkCount++] = (byte) alphabet[0x3F & (group >>> 6)];
+        } else if (padding) {
+          chunk[chunkCount++] = '=';
+        }
+        if (padding) {
+          chunk[chunkCount++] = '=';
+        }
+        byteCount = 0;
+      }
+      flushChunk();
+    } finally {
+      closed = true;
+      out.close();
+    }
+  }
+
+  private void encodeGroup() throws IOException {
+    writeSeparatorIfNeeded();
+    chunk[chunkCount] = (byte) alphabet[0x3F & (bits >>> 18)];
+    chunk[chunkCount + 1] = (byte) alphabet[0x3F & (bits >>> 12)];
+    chunk[chunkCount + 2] = (byte) alphabet[0x3F & (bits >>> 6)];
+    chunk[chunkCount + 3] = (byte) alphabet[0x3F & bits];
+    chunkCount += 4;
+    bits = 0;
+    byteCount = 0;
+    if (wrap > 0 && ++iWrap == wrap) {
+      lineEnded = true;
+      iWrap = 0;
+    }
+  }
+
+  /* The separator is written lazily so that the output never ends with a line separator */
+  private void writeSeparatorIfNeeded() throws IOException {
+    if (chunkCount > CHUNK_SIZE - 6) {
+      flushChunk();
+    }
+    if (lineEnded) {
+      chunk[chunkCount++] = '\r';
+      chunk[chunkCount++] = '\n';
+      lineEnded = false;
+    }
+  }
+
+  private void flushChunk() throws IOException {
+    if (chunkCount > 0) {
+      out.write(chunk, 0, chunkCount);
+      chunkCount = 0;
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream is closed");
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+/**
+ * Entry points of the SIMD Base 64 kernels.
+ *
+ * <p>This is the scalar fallback for runtimes older than Java 21, where every method does nothing
+ * and reports that nothing was processed. The multi-release JAR carries a Java 21 version of this
+ * class under {@code META-INF/versions/21} which uses the Vector API when the {@code
+ * jdk.incubator.vector} module is resolved.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+final class Base64Simd {
+
+  private Base64Simd() {}
+
+  /**
+   * Encodes a prefix of {@code len} bytes, without padding and line separators.
+   *
+   * @return The number of bytes encoded, a multiple of 3
+   */
+  static int encode(byte[] src, int srcOff, int len, byte[] dst, int dstOff, char[] alphabet) {
+    return 0;
+  }
+
+  /**
+   * Decodes a prefix of {@code len} ASCII bytes that contains characters of the alphabet only, or
+   * of both alphabets when {@code alphabet} is {@code null}. Nothing is stored at or after {@code
+   * dstEnd}.
+   *
+   * @return The number of bytes decoded, a multiple of 4
+   */
+  static int decode(
+      byte[] src, int srcOff, int len, byte[] dst, int dstOff, int dstEnd, char[] alphabet) {
+    return 0;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.util.Arrays;
+
+/**
+ * Table builders and argument checks shared by the Base 16, Base 32 and Base 64 codecs.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+final class Radix {
+
+  /** Decode map entry of a character that is not allowed in the input */
+  static final int INVALID = -2;
+
+  /** Decode map entry of a character that is allowed in the input but carries no bits */
+  static final int SKIP = -1;
+
+  private Radix() {}
+
+  static void checkRange(int length, int offset, int count, String name) {
+    if (offset < 0 || count < 0 || offset > length - count) {
+      throw new IllegalArgumentException(
+          "The range ["
+              + offset
+              + ", "
+              + offset
+              + " + "
+              + count
+              + ") is outside the bounds of the "
+              + name
+              + " array");
+    }
+  }
+
+  /**
+   * Builds the pair table of an alphabet of {@code 1 << bits} characters. Every entry holds the two
+   * ASCII characters of a group of {@code 2 * bits} bits, high byte first, so that two characters
+   * are emitted with one load.
+   */
+  static char[] pairs(final char[] alphabet, final int bits) {
+    final int mask = (1 << bits) - 1;
+    final char[] table = new char[1 << (bits << 1)];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (char) (alphabet[i >>> bits] << 8 | alphabet[mask & i]);
+    }
+    return table;
+  }
+
+  /**
+   * Builds a decode map over all 256 byte values. The characters of the alphabet map to their
+   * values, in both cases when {@code ignoreCase} is set, and everything else is {@link #INVALID}.
+   */
+  static int[] decodeMap(final char[] alphabet, final boolean ignoreCase) {
+    final int[] map = new int[256];
+    Arrays.fill(map, INVALID);
+    for (int i = 0; i < alphabet.length; i++) {
+      final char ch = alphabet[i];
+      map[ch] = i;
+      if (ignoreCase) {
+        map[Character.toLowerCase(ch)] = i;
+        map[Character.toUpperCase(ch)] = i;
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Builds the String of ASCII bytes. The deprecated {@code hibyte} constructor is the cheapest
+   * one: on runtimes with compact strings it copies the bytes once into a Latin-1 String.
+   */
+  @SuppressWarnings("deprecation")
+  static String ascii(final byte[] ascii) {
+    return new String(ascii, 0, 0, ascii.length);
+  }
+}
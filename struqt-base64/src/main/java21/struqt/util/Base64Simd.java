@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+/**
+ * Entry points of the SIMD Base 64 kernels.
+ *
+ * <p>This is the Java 21 version of this class. The Vector API kernels in {@link Base64Vector}
+ * are used only when the {@code jdk.incubator.vector} module is resolved, for example by running
+ * with {@code --add-modules jdk.incubator.vector}, and the preferred vector shape holds at least 16
+ * bytes. Otherwise every method reports that nothing was processed and the scalar code is used.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+final class Base64Simd {
+
+  private static final boolean ENABLED =
+      ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && Base64Vector.usable();
+
+  private Base64Simd() {}
+
+  /**
+   * Encodes a prefix of {@code len} bytes, without padding and line separators.
+   *
+   * @return The number of bytes encoded, a multiple of 3
+   */
+  static int encode(byte[] src, int srcOff, int len, byte[] dst, int dstOff, char[] alphabet) {
+    if (!ENABLED) {
+      return 0;
+    }
+    return Base64Vector.encode(src, srcOff, len, dst, dstOff, alphabet[62], alphabet[63]);
+  }
+
+  /**
+   * Decodes a prefix of {@code len} ASCII bytes that contains characters of the alphabet only, or
+   * of both alphabets when {@code alphabet} is {@code null}. Nothing is stored at or after {@code
+   * dstEnd}.
+   *
+   * @return The number of bytes decoded, a multiple of 4
+   */
+  static int decode(
+      byte[] src, int srcOff, int len, byte[] dst, int dstOff, int dstEnd, char[] alphabet) {
+    if (!ENABLED) {
+      return 0;
+    }
+    if (alphabet == null) {
+      return Base64Vector.decode(src, srcOff, len, dst, dstOff, dstEnd, '+', '-', '/', '_');
+    }
+    char char62 = alphabet[62];
+    char char63 = alphabet[63];
+    return Base64Vector.decode(
+        src, srcOff, len, dst, dstOff, dstEnd, char62, char62, char63, char63);
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.LE;
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+
+/**
+ * Base 64 kernels with the Vector API, processing one preferred-size vector (16 to 64 bytes) per
+ * iteration.
+ *
+ * <p>Encoding spreads every 3 input bytes to 4 lanes with two shuffles, cuts the sextets with
+ * per-lane shifts and masks, and maps them to ASCII with range compares instead of a table.
+ * Decoding does the reverse, and stops at the first vector that has any character outside the
+ * alphabet so the scalar code can deal with separators, padding and errors.
+ *
+ * <p>This class must only be loaded when the {@code jdk.incubator.vector} module is resolved.
+ *
+ * @author wangkang
+ * @since 1.3
+ */
+final class Base64Vector {
+
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+  private static final int LANES = SPECIES.length();
+
+  private static final VectorShuffle<Byte> ENCODE_HI;
+  private static final VectorShuffle<Byte> ENCODE_LO;
+  private static final ByteVector ENCODE_HI_SHIFT;
+  private static final ByteVector ENCODE_HI_MASK;
+  private static final ByteVector ENCODE_LO_SHIFT;
+  private static final ByteVector ENCODE_LO_MASK;
+
+  private static final VectorShuffle<Byte> DECODE_HI;
+  private static final VectorShuffle<Byte> DECODE_LO;
+  private static final ByteVector DECODE_HI_SHIFT;
+  private static final ByteVector DECODE_LO_SHIFT;
+
+  static {
+    int[] encodeHi = new int[LANES];
+    int[] encodeLo = new int[LANES];
+    byte[] encodeHiShift = new byte[LANES];
+    byte[] encodeHiMask = new byte[LANES];
+    byte[] encodeLoShift = new byte[LANES];
+    byte[] encodeLoMask = new byte[LANES];
+    /* Lane k of every 4 lanes is ((hi << hiShift) & hiMask) | ((lo >>> loShift) & loMask) */
+    int[] hiIndex = {0, 0, 1, 2};
+    int[] loIndex = {0, 1, 2, 2};
+    int[] hiShift = {0, 4, 2, 0};
+    int[] hiMask = {0x00, 0x30, 0x3C, 0x3F};
+    int[] loShift = {2, 4, 6, 0};
+    int[] loMask = {0xFF, 0xFF, 0xFF, 0x00};
+    for (int j = 0; j < LANES; j++) {
+      int group = j >>> 2;
+      int k = j & 3;
+      encodeHi[j] = group * 3 + hiIndex[k];
+      encodeLo[j] = group * 3 + loIndex[k];
+      encodeHiShift[j] = (byte) hiShift[k];
+      encodeHiMask[j] = (byte) hiMask[k];
+      encodeLoShift[j] = (byte) loShift[k];
+      encodeLoMask[j] = (byte) loMask[k];
+    }
+    ENCODE_HI = VectorShuffle.fromArray(SPECIES, encodeHi, 0);
+    ENCODE_LO = VectorShuffle.fromArray(SPECIES, encodeLo, 0);
+    ENCODE_HI_SHIFT = ByteVector.fromArray(SPECIES, encodeHiShift, 0);
+    ENCODE_HI_MASK = ByteVector.fromArray(SPECIES, encodeHiMask, 0);
+    ENCODE_LO_SHIFT = ByteVector.fromArray(SPECIES, encodeLoShift, 0);
+    ENCODE_LO_MASK = ByteVector.fromArray(SPECIES, encodeLoMask, 0);
+
+    int[] decodeHi = new int[LANES];
+    int[] decodeLo = new int[LANES];
+    byte[] decodeHiShift = new byte[LANES];
+    byte[] decodeLoShift = new byte[LANES];
+    /* Lane k of every 3 lanes is (sextet[k] << hiShift) | (sextet[k + 1] >>> loShift) */
+    int[] hiShift3 = {2, 4, 6};
+    int[] loShift3 = {4, 2, 0};
+    int blockBytes = LANES / 4 * 3;
+    for (int j = 0; j < blockBytes; j++) {
+      int group = j / 3;
+      int k = j % 3;
+      decodeHi[j] = group * 4 + k;
+      decodeLo[j] = group * 4 + k + 1;
+      decodeHiShift[j] = (byte) hiShift3[k];
+      decodeLoShift[j] = (byte) loShift3[k];
+    }
+    DECODE_HI = VectorShuffle.fromArray(SPECIES, decodeHi, 0);
+    DECODE_LO = VectorShuffle.fromArray(SPECIES, decodeLo, 0);
+    DECODE_HI_SHIFT = ByteVector.fromArray(SPECIES, decodeHiShift, 0);
+    DECODE_LO_SHIFT = ByteVector.fromArray(SPECIES, decodeLoShift, 0);
+  }
+
+  private Base64Vector() {}
+
+  static boolean usable() {
+    return LANES >= 16;
+  }
+
+  static int encode(
+      byte[] src, int srcOff, int len, byte[] dst, int dstOff, char char62, char char63) {
+    final int blockBytes = LANES / 4 * 3;
+    int i = 0;
+    int d = dstOff;
+    /* A whole vector is loaded but only blockBytes of it are consumed */
+    while (i + LANES <= len) {
+      ByteVector in = ByteVector.fromArray(SPECIES, src, srcOff + i);
+      ByteVector hi = in.rearrange(ENCODE_HI).lanewise(LSHL, ENCODE_HI_SHIFT).and(ENCODE_HI_MASK);
+      ByteVector lo = in.rearrange(ENCODE_LO).lanewise(LSHR, ENCODE_LO_SHIFT).and(ENCODE_LO_MASK);
+      ByteVector index = hi.or(lo);
+      ByteVector ascii = index.add((byte) 'A');
+      ascii = ascii.add((byte) ('a' - 'A' - 26), index.compare(GE, (byte) 26));
+      ascii = ascii.sub((byte) ('a' - 26 - '0' + 52), index.compare(GE, (byte) 52));
+      ascii = ascii.blend((byte) char62, index.compare(EQ, (byte) 62));
+      ascii = ascii.blend((byte) char63, index.compare(EQ, (byte) 63));
+      ascii.intoArray(dst, d);
+      i += blockBytes;
+      d += LANES;
+    }
+    return i;
+  }
+
+  /* Either of the two characters given for index 62 and for index 63 is accepted */
+  static int decode(
+      byte[] src,
+      int srcOff,
+      int len,
+      byte[] dst,
+      int dstOff,
+      int dstEnd,
+      char char62,
+      char char62Alt,
+      char char63,
+      char char63Alt) {
+    final int blockBytes = LANES / 4 * 3;
+    int i = 0;
+    int d = dstOff;
+    /* A whole vector is stored but only blockBytes of it are kept */
+    while (i + LANES <= len && d + LANES <= dstEnd) {
+      ByteVector in = ByteVector.fromArray(SPECIES, src, srcOff + i);
+      VectorMask<Byte> upper = range(in, 'A', 'Z');
+      VectorMask<Byte> lower = range(in, 'a', 'z');
+      VectorMask<Byte> digit = range(in, '0', '9');
+      VectorMask<Byte> plus = in.compare(EQ, (byte) char62).or(in.compare(EQ, (byte) char62Alt));
+      VectorMask<Byte> slash = in.compare(EQ, (byte) char63).or(in.compare(EQ, (byte) char63Alt));
+      if (!upper.or(lower).or(digit).or(plus).or(slash).allTrue()) {
+        break;
+      }
+      ByteVector sextet = in.sub((byte) 'A', upper);
+      sextet = sextet.sub((byte) ('a' - 26), lower);
+      sextet = sextet.add((byte) (52 - '0'), digit);
+      sextet = sextet.blend((byte) 62, plus);
+      sextet = sextet.blend((byte) 63, slash);
+      ByteVector hi = sextet.rearrange(DECODE_HI).lanewise(LSHL, DECODE_HI_SHIFT);
+      ByteVector lo = sextet.rearrange(DECODE_LO).lanewise(LSHR, DECODE_LO_SHIFT);
+      hi.or(lo).intoArray(dst, d);
+      i += LANES;
+      d += blockBytes;
+    }
+    return i;
+  }
+
+  private static VectorMask<Byte> range(ByteVector in, char from, char to) {
+    return in.compare(GE, (byte) from).and(in.compare(LE, (byte) to));
+  }
+}
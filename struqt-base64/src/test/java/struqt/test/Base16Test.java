@@ -0,0 +1,109 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base16;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 16 Test")
+class Base16Test {
+
+  private static final Random random = new SecureRandom();
+
+  @Test
+  protected void rfc4648() {
+    String[] input = {"", "f", "fo", "foo", "foob", "fooba", "foobar"};
+    String[] output = {"", "66", "666F", "666F6F", "666F6F62", "666F6F6261", "666F6F626172"};
+    for (int i = 0; i < input.length; i++) {
+      byte[] bytes = input[i].getBytes(StandardCharsets.US_ASCII);
+      assertEquals(output[i], Base16.encodeToString(bytes, true));
+      assertEquals(output[i].toLowerCase(Locale.ROOT), Base16.encodeToString(bytes));
+      assertArrayEquals(bytes, Base16.decode(output[i]));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 100, 1000})
+  protected void encodeAndDecode(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    StringBuilder sb = new StringBuilder();
+    for (byte b : bytes) {
+      sb.append(String.format("%02x", b));
+    }
+    String expected = sb.toString();
+    String upper = expected.toUpperCase(Locale.ROOT);
+    assertEquals(expected, Base16.encodeToString(bytes));
+    assertEquals(upper, new String(Base16.encode(bytes, true)));
+    byte[] dst = new byte[2 * len + 2];
+    assertEquals(2 * len, Base16.encode(bytes, 0, len, dst, 1, false));
+    assertEquals(expected, new String(dst, 1, 2 * len, StandardCharsets.US_ASCII));
+    assertArrayEquals(bytes, Base16.decode(expected));
+    assertArrayEquals(bytes, Base16.decode(upper.toCharArray()));
+    assertArrayEquals(bytes, Base16.decode(upper.getBytes(StandardCharsets.US_ASCII)));
+    byte[] out = new byte[len + 1];
+    assertEquals(len, Base16.decode(dst, 1, 2 * len, out, 1));
+    assertArrayEquals(bytes, java.util.Arrays.copyOfRange(out, 1, len + 1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 8, 9, 100})
+  protected void heapAndDirectBuffers(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    byte[] expected = Base16.encodeToString(bytes, true).getBytes(StandardCharsets.US_ASCII);
+    for (boolean direct : new boolean[] {false, true}) {
+      ByteBuffer src = direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+      src.put(bytes).flip();
+      ByteBuffer text = direct ? ByteBuffer.allocateDirect(2 * len) : ByteBuffer.allocate(2 * len);
+      assertEquals(2 * len, Base16.encode(src, text, true));
+      assertEquals(0, src.remaining());
+      text.flip();
+      byte[] actual = new byte[text.remaining()];
+      text.duplicate().get(actual);
+      assertArrayEquals(expected, actual);
+      ByteBuffer out = direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+      assertEquals(len, Base16.decode(text, out));
+      out.flip();
+      byte[] decoded = new byte[out.remaining()];
+      out.get(decoded);
+      assertArrayEquals(bytes, decoded);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"0", "0g", "abcdef0123456789x1", "12 34", "abĀc", "0123456789abcdeG"})
+  protected void decodeInvalid(String s) {
+    assertThrows(IllegalArgumentException.class, () -> Base16.decode(s));
+    assertThrows(IllegalArgumentException.class, () -> Base16.decode(s.toCharArray()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Base16.decode(s.getBytes(StandardCharsets.ISO_8859_1)));
+    ByteBuffer direct = ByteBuffer.allocateDirect(s.length());
+    direct.put(s.getBytes(StandardCharsets.ISO_8859_1)).flip();
+    assertThrows(
+        IllegalArgumentException.class, () -> Base16.decode(direct, ByteBuffer.allocate(16)));
+  }
+
+  @Test
+  protected void decodeInvalidPosition() {
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> Base16.decode("00112233445566x7"));
+    assertEquals("Invalid base16 character '120' at position 15", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> Base16.encodedLength(-1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Base16.encode(new byte[2], 0, 2, new byte[3], 0, false));
+  }
+}
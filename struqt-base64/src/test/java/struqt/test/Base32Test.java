@@ -0,0 +1,163 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base32;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 32 Test")
+class Base32Test {
+
+  private static final Random random = new SecureRandom();
+  private static final String[] INPUT = {"", "f", "fo", "foo", "foob", "fooba", "foobar"};
+
+  @Test
+  protected void rfc4648() {
+    String[] basic = {
+      "", "MY======", "MZXQ====", "MZXW6===", "MZXW6YQ=", "MZXW6YTB", "MZXW6YTBOI======"
+    };
+    String[] hex = {
+      "", "CO======", "CPNG====", "CPNMU===", "CPNMUOG=", "CPNMUOJ1", "CPNMUOJ1E8======"
+    };
+    for (int i = 0; i < INPUT.length; i++) {
+      byte[] bytes = INPUT[i].getBytes(StandardCharsets.US_ASCII);
+      assertEquals(basic[i], Base32.encodeToString(bytes));
+      assertEquals(hex[i], Base32.hexEncoder().encodeToString(bytes));
+      String unpadded = basic[i].replace("=", "");
+      assertEquals(unpadded, Base32.encoder().withoutPadding().encodeToString(bytes));
+      assertArrayEquals(bytes, Base32.decode(basic[i]));
+      assertArrayEquals(bytes, Base32.decode(unpadded.toLowerCase(Locale.ROOT)));
+      assertArrayEquals(bytes, Base32.hexDecoder().decode(hex[i].toCharArray()));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 9, 10, 11, 39, 40, 41, 100, 1000})
+  protected void encodeAndDecode(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    Base32.Encoder[] encoders = {Base32.encoder(), Base32.hexEncoder(), Base32.crockfordEncoder()};
+    Base32.Decoder[] decoders = {Base32.decoder(), Base32.hexDecoder(), Base32.crockfordDecoder()};
+    for (int k = 0; k < encoders.length; k++) {
+      Base32.Encoder encoder = encoders[k];
+      Base32.Decoder decoder = decoders[k];
+      String text = encoder.encodeToString(bytes);
+      assertEquals(expected(bytes, k), text);
+      assertEquals(text.length(), encoder.encodedLength(len));
+      char[] chars = new char[text.length() + 1];
+      assertEquals(text.length(), encoder.encode(bytes, 0, len, chars, 1));
+      assertEquals(text, new String(chars, 1, text.length()));
+      byte[] ascii = new byte[text.length() + 1];
+      assertEquals(text.length(), encoder.encode(bytes, 0, len, ascii, 1));
+      assertArrayEquals(bytes, decoder.decode(text));
+      assertArrayEquals(bytes, decoder.decode(text.toLowerCase(Locale.ROOT).toCharArray()));
+      assertArrayEquals(bytes, decoder.decode(text.getBytes(StandardCharsets.US_ASCII)));
+      byte[] out = new byte[len + 1];
+      assertEquals(len, decoder.decode(ascii, 1, text.length(), out, 1));
+      assertArrayEquals(bytes, java.util.Arrays.copyOfRange(out, 1, len + 1));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 9, 10, 11, 100})
+  protected void heapAndDirectBuffers(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    byte[] expected = Base32.encoder().encode(bytes);
+    for (boolean direct : new boolean[] {false, true}) {
+      ByteBuffer src = direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+      src.put(bytes).flip();
+      int n = expected.length;
+      ByteBuffer text = direct ? ByteBuffer.allocateDirect(n) : ByteBuffer.allocate(n);
+      assertEquals(n, Base32.encoder().encode(src, text));
+      assertEquals(0, src.remaining());
+      text.flip();
+      byte[] actual = new byte[text.remaining()];
+      text.duplicate().get(actual);
+      assertArrayEquals(expected, actual);
+      ByteBuffer out = direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+      assertEquals(len, Base32.decoder().decode(text, out));
+      assertEquals(0, text.remaining());
+      out.flip();
+      byte[] decoded = new byte[out.remaining()];
+      out.get(decoded);
+      assertArrayEquals(bytes, decoded);
+    }
+  }
+
+  @Test
+  protected void crockford() {
+    byte[] bytes = "foobar".getBytes(StandardCharsets.US_ASCII);
+    String text = Base32.crockfordEncoder().encodeToString(bytes);
+    assertEquals("CSQPYRK1E8", text);
+    assertArrayEquals(bytes, Base32.crockfordDecoder().decode("csqp-yrkl-e8"));
+    assertArrayEquals(bytes, Base32.crockfordDecoder().decode("CSQPYRKIE8".getBytes()));
+    assertArrayEquals(new byte[] {0, 0, 0, 0, 0}, Base32.crockfordDecoder().decode("oO0-00000"));
+    assertSame(Base32.crockfordEncoder(), Base32.crockfordEncoder().withoutPadding());
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "M", "MZX", "MZXW6Y", "MY=====", "MY=======", "M=Y=====", "MZXW6YT1", "MZ XW", "MŁ"
+      })
+  protected void decodeInvalid(String s) {
+    assertThrows(IllegalArgumentException.class, () -> Base32.decode(s));
+    assertThrows(IllegalArgumentException.class, () -> Base32.decoder().decode(s.toCharArray()));
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    assertThrows(IllegalArgumentException.class, () -> Base32.decoder().decode(bytes));
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Base32.decoder().decode(direct, ByteBuffer.allocate(16)));
+  }
+
+  @Test
+  protected void decodeInvalidPosition() {
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> Base32.decode("MZXW6YTBO-======"));
+    assertEquals("Invalid base32 character '45' at position 10", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> Base32.hexDecoder().decode("CPNMUOJW"));
+    assertThrows(IllegalArgumentException.class, () -> Base32.crockfordDecoder().decode("CSQU"));
+  }
+
+  /* Reference encoder, one quintet at a time */
+  private static String expected(byte[] bytes, int alphabet) {
+    String[] alphabets = {
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567",
+      "0123456789ABCDEFGHIJKLMNOPQRSTUV",
+      "0123456789ABCDEFGHJKMNPQRSTVWXYZ"
+    };
+    StringBuilder sb = new StringBuilder();
+    int bits = 0;
+    int count = 0;
+    for (byte b : bytes) {
+      bits = bits << 8 | (0xFF & b);
+      count += 8;
+      while (count >= 5) {
+        sb.append(alphabets[alphabet].charAt(0x1F & (bits >>> (count - 5))));
+        count -= 5;
+      }
+    }
+    if (count > 0) {
+      sb.append(alphabets[alphabet].charAt(0x1F & (bits << (5 - count))));
+    }
+    while (alphabet < 2 && sb.length() % 8 != 0) {
+      sb.append('=');
+    }
+    return sb.toString();
+  }
+}
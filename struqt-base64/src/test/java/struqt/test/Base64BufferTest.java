@@ -0,0 +1,163 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base64;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 64 Byte Buffer Test")
+class Base64BufferTest {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 7, 8, 56, 57, 58, 113, 114, 115, 229})
+  protected void encodeHeapAndDirect(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    assertEncoded(java.util.Base64.getEncoder().encode(bytes), bytes, false, false, true);
+    assertEncoded(java.util.Base64.getUrlEncoder().encode(bytes), bytes, true, false, true);
+    assertEncoded(java.util.Base64.getMimeEncoder().encode(bytes), bytes, false, true, true);
+    assertEncoded(
+        java.util.Base64.getEncoder().withoutPadding().encode(bytes), bytes, false, false, false);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 7, 8, 56, 57, 58, 113, 114, 115, 229})
+  protected void decodeHeapAndDirect(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    assertDecoded(bytes, java.util.Base64.getEncoder().encode(bytes));
+    assertDecoded(bytes, java.util.Base64.getUrlEncoder().withoutPadding().encode(bytes));
+    assertDecoded(bytes, java.util.Base64.getMimeEncoder().encode(bytes));
+  }
+
+  @Test
+  protected void advancesPositions() {
+    ByteBuffer src = ByteBuffer.wrap("__abc".getBytes(StandardCharsets.US_ASCII));
+    src.position(2);
+    ByteBuffer dst = ByteBuffer.allocateDirect(16);
+    dst.position(3);
+    assertEquals(4, Base64.encode(src, dst));
+    assertEquals(5, src.position());
+    assertEquals(7, dst.position());
+    dst.flip().position(3);
+    ByteBuffer out = ByteBuffer.allocate(8);
+    assertEquals(3, Base64.decode(dst, out));
+    assertEquals(7, dst.position());
+    assertEquals("abc", new String(out.array(), 0, out.position(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  protected void notEnoughSpace() {
+    ByteBuffer src = ByteBuffer.wrap(new byte[] {1, 2, 3, 4});
+    ByteBuffer dst = ByteBuffer.allocate(7);
+    assertThrows(IllegalArgumentException.class, () -> Base64.encode(src, dst));
+    assertEquals(0, src.position());
+    assertEquals(0, dst.position());
+    ByteBuffer encoded = ByteBuffer.wrap("AQIDBA==".getBytes(StandardCharsets.US_ASCII));
+    ByteBuffer small = ByteBuffer.allocateDirect(3);
+    assertThrows(IllegalArgumentException.class, () -> Base64.decode(encoded, small));
+    assertEquals(0, encoded.position());
+    assertEquals(0, small.position());
+  }
+
+  @Test
+  protected void decodeInvalid() {
+    ByteBuffer src = ByteBuffer.wrap(new byte[] {'Q', 'U', (byte) 0xC3, 'J'});
+    assertThrows(IllegalArgumentException.class, () -> Base64.decode(src, ByteBuffer.allocate(8)));
+    ByteBuffer single = ByteBuffer.wrap(new byte[] {'Q', 'U', 'J', 'D', 'R'});
+    assertThrows(
+        IllegalArgumentException.class, () -> Base64.decode(single, ByteBuffer.allocate(8)));
+  }
+
+  /* Heap buffers decode on their arrays, which must stay untouched outside of the buffers */
+  @Test
+  protected void decodeHeapSlices() {
+    byte[] bytes = new byte[3000];
+    random.nextBytes(bytes);
+    byte[] encoded = java.util.Base64.getEncoder().encode(bytes);
+    byte[] padded = new byte[encoded.length + 10];
+    System.arraycopy(encoded, 0, padded, 5, encoded.length);
+    ByteBuffer src = ByteBuffer.wrap(padded, 5, encoded.length).slice();
+    byte[] out = new byte[bytes.length + 64];
+    Arrays.fill(out, (byte) 0x55);
+    ByteBuffer dst = ByteBuffer.wrap(out, 16, bytes.length);
+    assertEquals(bytes.length, Base64.decode(src, dst));
+    assertEquals(ByteBuffer.wrap(bytes), ByteBuffer.wrap(out, 16, bytes.length));
+    for (int i = 0; i < out.length; i++) {
+      if (i < 16 || i >= 16 + bytes.length) {
+        assertEquals(0x55, out[i]);
+      }
+    }
+    padded[5 + 2000] = 1;
+    for (boolean direct : new boolean[] {false, true}) {
+      ByteBuffer invalid = copyOf(padded, direct);
+      invalid.position(5);
+      IllegalArgumentException e =
+          assertThrows(
+              IllegalArgumentException.class,
+              () -> Base64.decode(invalid, ByteBuffer.allocate(bytes.length)));
+      assertEquals("Invalid base64 character '1' at position 2001", e.getMessage());
+      assertEquals(5, invalid.position());
+    }
+  }
+
+  private static void assertEncoded(
+      byte[] expect, byte[] bytes, boolean url, boolean mime, boolean padding) {
+    for (boolean direct : new boolean[] {false, true}) {
+      ByteBuffer src = copyOf(bytes, direct);
+      ByteBuffer dst =
+          direct ? ByteBuffer.allocateDirect(expect.length) : ByteBuffer.allocate(expect.length);
+      assertEquals(expect.length, Base64.encode(src, dst, url, mime, padding));
+      assertEquals(0, src.remaining());
+      assertEquals(0, dst.remaining());
+      dst.flip();
+      byte[] actual = new byte[dst.remaining()];
+      dst.get(actual);
+      assertEquals(
+          new String(expect, StandardCharsets.US_ASCII),
+          new String(actual, StandardCharsets.US_ASCII));
+    }
+  }
+
+  private static void assertDecoded(byte[] expect, byte[] encoded) {
+    assertDecoded(expect, encoded, ByteOrder.BIG_ENDIAN);
+    assertDecoded(expect, encoded, ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static void assertDecoded(byte[] expect, byte[] encoded, ByteOrder order) {
+    for (boolean direct : new boolean[] {false, true}) {
+      ByteBuffer src = copyOf(encoded, direct).order(order);
+      ByteBuffer dst =
+          direct ? ByteBuffer.allocateDirect(expect.length) : ByteBuffer.allocate(expect.length);
+      dst.order(order);
+      assertEquals(expect.length, Base64.decode(src, dst));
+      assertEquals(0, src.remaining());
+      dst.flip();
+      byte[] actual = new byte[dst.remaining()];
+      dst.get(actual);
+      assertEquals(ByteBuffer.wrap(expect), ByteBuffer.wrap(actual));
+    }
+  }
+
+  private static ByteBuffer copyOf(byte[] bytes, boolean direct) {
+    if (!direct) {
+      return ByteBuffer.wrap(bytes);
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes).flip();
+    return buffer;
+  }
+}
@@ -0,0 +1,89 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base64;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 64 Encoder and Decoder Test")
+class Base64CodecTest {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 56, 57, 58, 114, 1000})
+  protected void encoder(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    assertEquals(
+        java.util.Base64.getEncoder().encodeToString(bytes),
+        Base64.encoder().encodeToString(bytes));
+    assertEquals(
+        java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+        Base64.urlEncoder().withoutPadding().encodeToString(bytes));
+    assertArrayEquals(
+        java.util.Base64.getMimeEncoder().encode(bytes), Base64.mimeEncoder().encode(bytes));
+    byte[] lf = "\n".getBytes(StandardCharsets.US_ASCII);
+    java.util.Base64.Encoder expected = java.util.Base64.getMimeEncoder(30, lf);
+    Base64.Encoder encoder = Base64.encoder().withLineLength(30).withLineSeparator("\n");
+    assertEquals(expected.encodeToString(bytes), encoder.encodeToString(bytes));
+    assertEquals(expected.encode(bytes).length, encoder.encodedLength(len));
+    byte[] dst = new byte[encoder.encodedLength(len) + 2];
+    assertEquals(encoder.encodedLength(len), encoder.encode(bytes, 0, len, dst, 1));
+  }
+
+  @Test
+  protected void encoderConfig() {
+    Base64.Encoder encoder = Base64.encoder();
+    assertSame(encoder, encoder.withLineLength(3));
+    assertSame(Base64.mimeEncoder(), Base64.mimeEncoder().withLineLength(79));
+    assertThrows(IllegalArgumentException.class, () -> encoder.withLineSeparator(""));
+    assertThrows(IllegalArgumentException.class, () -> encoder.withLineSeparator("\r\nA"));
+    assertThrows(IllegalArgumentException.class, () -> encoder.encodedLength(-1));
+    assertThrows(
+        IllegalArgumentException.class, () -> encoder.encode(new byte[3], 0, 3, new byte[3], 0));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 56, 57, 58, 114, 1000})
+  protected void decoder(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    String basic = java.util.Base64.getEncoder().encodeToString(bytes);
+    String url = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    String mime = java.util.Base64.getMimeEncoder().encodeToString(bytes);
+    assertArrayEquals(bytes, Base64.decoder().decode(basic));
+    assertArrayEquals(bytes, Base64.decoder().decode(mime.toCharArray()));
+    assertArrayEquals(bytes, Base64.decoder().strict().decode(basic.getBytes()));
+    assertArrayEquals(bytes, Base64.decoder().strict().decode(basic.toCharArray()));
+    assertArrayEquals(bytes, Base64.urlDecoder().decode(url.getBytes()));
+    assertArrayEquals(bytes, Base64.urlDecoder().strict().decode(url));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"QUJD-A", "QUJD_A", "QUJDŁA"})
+  protected void decoderAlphabet(String s) {
+    assertThrows(IllegalArgumentException.class, () -> Base64.decoder().decode(s));
+    assertThrows(IllegalArgumentException.class, () -> Base64.decoder().decode(s.getBytes()));
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {"QUJD QQ==", "QUJDQQ=", "QUJDQ===", "QUJD\r\nQQ==", "QU=JDQQ", "==", "QUJD\nQUJD"})
+  protected void decoderStrict(String s) {
+    Base64.Decoder strict = Base64.decoder().strict();
+    assertThrows(IllegalArgumentException.class, () -> strict.decode(s));
+    assertThrows(IllegalArgumentException.class, () -> strict.decode(s.toCharArray()));
+    assertThrows(IllegalArgumentException.class, () -> strict.decode(s.getBytes()));
+  }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import struqt.util.Base64;
 
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Random;
@@ -73,4 +74,106 @@ public class Base64DecodeTest {
     byte[] actual = Base64.decode(encoded);
     assertTrue(Arrays.equals(actual, bytes));
   }
+
+  @ParameterizedTest
+  @ValueSource(ints = {8, 9, 15, 16, 17, 23, 24, 100, 1000, 4096})
+  protected void inputMixedLayout(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    String encoded = java.util.Base64.getEncoder().encodeToString(bytes);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < encoded.length(); i++) {
+      if (random.nextInt(16) == 0) {
+        builder.append(random.nextBoolean() ? ' ' : '\n');
+      }
+      builder.append(encoded.charAt(i));
+    }
+    String mixed = builder.toString();
+    assertTrue(Arrays.equals(bytes, Base64.decode(mixed)));
+    assertTrue(Arrays.equals(bytes, Base64.decode(mixed.toCharArray())));
+    assertTrue(Arrays.equals(bytes, Base64.decode(mixed.getBytes(StandardCharsets.US_ASCII))));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 3, 7, 8, 12, 15})
+  protected void inputInvalidInWord(int position) {
+    char[] chars = "QUJDREVGR0hJSktMTU5PUA==".toCharArray();
+    chars[position] = '\u0141';
+    assertThrows(IllegalArgumentException.class, () -> Base64.decode(chars));
+    byte[] bytes = new String(chars).getBytes(StandardCharsets.ISO_8859_1);
+    bytes[position] = (byte) 0xC1;
+    assertThrows(IllegalArgumentException.class, () -> Base64.decode(bytes));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 56, 57, 58, 113, 114, 115, 1000, 4096})
+  protected void decodedLength(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    String basic = java.util.Base64.getEncoder().encodeToString(bytes);
+    String url = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    String mime = java.util.Base64.getMimeEncoder().encodeToString(bytes);
+    assertEquals(len, Base64.decodedLength(basic));
+    assertEquals(len, Base64.decodedLength(url.toCharArray()));
+    assertEquals(len, Base64.decodedLength(mime.getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(len, Base64.decodedLength(mime + "\r\n"));
+    assertEquals(len, Base64.decode(mime + " ").length);
+    assertEquals(len, Base64.decode(" " + mime).length);
+  }
+
+  @Test
+  protected void decodedLengthInvalid() {
+    assertEquals(0, Base64.decodedLength((String) null));
+    assertEquals(0, Base64.decodedLength((byte[]) null));
+    assertEquals(0, Base64.decodedLength((char[]) null));
+    assertEquals(0, Base64.decodedLength(" \n"));
+    assertThrows(IllegalArgumentException.class, () -> Base64.decodedLength("abcde"));
+    assertThrows(IllegalArgumentException.class, () -> Base64.decodedLength("abc\u0141"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {766, 767, 768, 769, 770, 1500, 3000})
+  protected void inputCharSequence(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    String encoded = java.util.Base64.getMimeEncoder().encodeToString(bytes);
+    assertTrue(Arrays.equals(bytes, Base64.decode(encoded)));
+    assertTrue(Arrays.equals(bytes, Base64.decode(new StringBuilder(encoded))));
+    StringBuilder invalid = new StringBuilder(encoded).append('\u0141');
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> Base64.decode(invalid));
+    assertTrue(e.getMessage().endsWith("at position " + invalid.length()));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 56, 57, 58, 1000, 4096})
+  protected void decodeInPlace(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    byte[] mime = java.util.Base64.getMimeEncoder().encode(bytes);
+    byte[] buf = new byte[mime.length + 10];
+    Arrays.fill(buf, (byte) '#');
+    System.arraycopy(mime, 0, buf, 5, mime.length);
+    assertEquals(len, Base64.decodeInPlace(buf, 5, mime.length));
+    assertTrue(Arrays.equals(bytes, Arrays.copyOfRange(buf, 5, 5 + len)));
+    assertEquals('#', buf[4]);
+    assertEquals('#', buf[5 + mime.length]);
+    assertThrows(IllegalArgumentException.class, () -> Base64.decodeInPlace(buf, 5, buf.length));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {47, 48, 49, 96, 100, 1000})
+  protected void inputLineLayouts(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    byte[] lf = {'\n'};
+    String pem = java.util.Base64.getMimeEncoder(64, lf).encodeToString(bytes);
+    String odd = java.util.Base64.getMimeEncoder(20, lf).encodeToString(bytes) + "\n";
+    String mime = java.util.Base64.getMimeEncoder().encodeToString(bytes);
+    String irregular = mime.replace("\r\n", "\n\n");
+    for (String s : new String[] {pem, odd, irregular}) {
+      assertTrue(Arrays.equals(bytes, Base64.decode(s)));
+      assertTrue(Arrays.equals(bytes, Base64.decode(s.getBytes(StandardCharsets.US_ASCII))));
+    }
+  }
 }
@@ -0,0 +1,79 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base64;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 64 File Test")
+class Base64FileTest {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 56, 57, 58, 1000, 100000})
+  protected void encodeFile(int len) throws IOException {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    transcode(bytes, java.util.Base64.getEncoder().encode(bytes), false, false, true);
+    byte[] url = java.util.Base64.getUrlEncoder().withoutPadding().encode(bytes);
+    transcode(bytes, url, true, false, false);
+    transcode(bytes, java.util.Base64.getMimeEncoder().encode(bytes), false, true, true);
+  }
+
+  /* Crosses the boundary of the mapped windows, which are 57 MiB of input when encoding */
+  @Test
+  protected void encodeFileWindows() throws IOException {
+    byte[] bytes = new byte[(57 << 20) + 100];
+    new Random(57).nextBytes(bytes);
+    transcode(bytes, java.util.Base64.getMimeEncoder().encode(bytes), false, true, true);
+  }
+
+  @Test
+  protected void decodeFileInvalid() throws IOException {
+    Path in = Files.createTempFile("base64", ".txt");
+    Path out = Files.createTempFile("base64", ".bin");
+    try {
+      Files.write(in, "QUJD\r\nRE\u0001F".getBytes(StandardCharsets.ISO_8859_1));
+      IllegalArgumentException e =
+          assertThrows(IllegalArgumentException.class, () -> Base64.decodeFile(in, out));
+      assertEquals("Invalid base64 character '1' at position 9", e.getMessage());
+      Files.write(in, "QUJDR".getBytes(StandardCharsets.US_ASCII));
+      assertThrows(IllegalArgumentException.class, () -> Base64.decodeFile(in, out));
+    } finally {
+      Files.delete(in);
+      Files.delete(out);
+    }
+  }
+
+  private static void transcode(
+      byte[] bytes, byte[] encoded, boolean url, boolean mime, boolean padding)
+      throws IOException {
+    Path in = Files.createTempFile("base64", ".bin");
+    Path text = Files.createTempFile("base64", ".txt");
+    Path out = Files.createTempFile("base64", ".bin");
+    try {
+      Files.write(in, bytes);
+      assertEquals(encoded.length, Base64.encodeFile(in, text, url, mime, padding));
+      assertArrayEquals(encoded, Files.readAllBytes(text));
+      assertEquals(bytes.length, Base64.decodeFile(text, out));
+      assertArrayEquals(bytes, Files.readAllBytes(out));
+    } finally {
+      Files.delete(in);
+      Files.delete(text);
+      Files.delete(out);
+    }
+  }
+}
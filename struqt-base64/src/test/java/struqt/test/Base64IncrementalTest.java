@@ -0,0 +1,160 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base64;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 64 Incremental Decoding Test")
+class Base64IncrementalTest {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 56, 57, 58, 100, 1000, 10000})
+  protected void update(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    Base64.IncrementalDecoder decoder = new Base64.IncrementalDecoder();
+    assertArrayEquals(bytes, decode(decoder, java.util.Base64.getEncoder().encode(bytes), 200));
+    assertArrayEquals(bytes, decode(decoder, java.util.Base64.getMimeEncoder().encode(bytes), 3));
+    byte[] url = java.util.Base64.getUrlEncoder().withoutPadding().encode(bytes);
+    assertArrayEquals(bytes, decode(decoder, url, 0));
+  }
+
+  @Test
+  protected void updateRoom() {
+    Base64.IncrementalDecoder decoder = new Base64.IncrementalDecoder();
+    byte[] src = "QUJDREVG".getBytes(StandardCharsets.US_ASCII);
+    byte[] dst = new byte[8];
+    assertEquals(2, decoder.update(src, 0, src.length, dst, 6));
+    assertEquals(3, decoder.consumed());
+    assertEquals(4, decoder.update(src, 3, 5, dst, 2));
+    assertEquals(5, decoder.consumed());
+    decoder.finish();
+    assertEquals("CDEFAB", new String(dst, 2, 6, StandardCharsets.US_ASCII));
+  }
+
+  /* Trailing padding and separators are consumed into a destination that is already full */
+  @Test
+  protected void updateExactRoom() {
+    Base64.IncrementalDecoder decoder = new Base64.IncrementalDecoder();
+    byte[] src = "QUJDRA==\r\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] dst = new byte[4];
+    assertEquals(4, decoder.update(src, 0, src.length, dst, 0));
+    assertEquals(src.length, decoder.consumed());
+    decoder.finish();
+    assertEquals("ABCD", new String(dst, StandardCharsets.US_ASCII));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 57, 58, 1000, 10000})
+  protected void updateBuffers(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    byte[] encoded = java.util.Base64.getMimeEncoder().encode(bytes);
+    Base64.IncrementalDecoder decoder = new Base64.IncrementalDecoder();
+    for (int kind = 0; kind < 3; kind++) {
+      int size = encoded.length + 2;
+      ByteBuffer src = kind == 0 ? ByteBuffer.allocate(size) : ByteBuffer.allocateDirect(size);
+      src.position(2);
+      src.put(encoded).flip().position(2);
+      src = src.slice();
+      size = len + 8;
+      ByteBuffer dst = kind == 2 ? ByteBuffer.allocate(size) : ByteBuffer.allocateDirect(size);
+      for (int i = 0; i < dst.capacity(); i++) {
+        dst.put(i, (byte) 0x55);
+      }
+      dst.position(3).limit(3 + len);
+      while (src.hasRemaining()) {
+        ByteBuffer piece = src.duplicate();
+        piece.limit(Math.min(src.limit(), src.position() + 1 + random.nextInt(100)));
+        ByteBuffer room = dst.duplicate();
+        room.limit(Math.min(dst.limit(), dst.position() + random.nextInt(80)));
+        int produced = decoder.update(piece, room);
+        assertEquals(decoder.consumed(), piece.position() - src.position());
+        assertEquals(produced, room.position() - dst.position());
+        src.position(piece.position());
+        dst.position(room.position());
+      }
+      decoder.finish();
+      assertEquals(3 + len, dst.position());
+      dst.clear();
+      for (int i = 0; i < dst.capacity(); i++) {
+        byte expect = i < 3 || i >= 3 + len ? 0x55 : bytes[i - 3];
+        assertEquals(expect, dst.get(i));
+      }
+    }
+    ByteBuffer invalid = ByteBuffer.allocateDirect(12);
+    invalid.put("QUJDREVGR\u0001==".getBytes(StandardCharsets.US_ASCII)).flip();
+    decoder.update((ByteBuffer) invalid.duplicate().limit(3), ByteBuffer.allocateDirect(8));
+    invalid.position(3);
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> decoder.update(invalid, ByteBuffer.allocateDirect(8)));
+    assertEquals("Invalid base64 character '1' at position 10", e.getMessage());
+    assertEquals(3, invalid.position());
+  }
+
+  @Test
+  protected void finishInvalid() {
+    Base64.IncrementalDecoder decoder = new Base64.IncrementalDecoder();
+    byte[] src = "QUJDR".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(3, decoder.update(src, 0, src.length, new byte[8], 0));
+    assertThrows(IllegalArgumentException.class, decoder::finish);
+    assertEquals(2, decoder.update(src, 0, 3, new byte[8], 0));
+    decoder.finish();
+    byte[] invalid = "QU\u0001J".getBytes(StandardCharsets.US_ASCII);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> decoder.update(invalid, 0, invalid.length, new byte[8], 0));
+  }
+
+  /* Positions count from the start of the input, in the carried quad and in the fast steps */
+  @Test
+  protected void positionInStream() {
+    Base64.IncrementalDecoder decoder = new Base64.IncrementalDecoder();
+    byte[] piece = "__QUJDREVGR0g=".getBytes(StandardCharsets.US_ASCII);
+    byte[] dst = new byte[64];
+    decoder.update(piece, 2, 10, dst, 0);
+    byte[] carried = "Q\u0001JD".getBytes(StandardCharsets.US_ASCII);
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> decoder.update(carried, 0, carried.length, dst, 0));
+    assertEquals("Invalid base64 character '1' at position 12", e.getMessage());
+    decoder.finish();
+    decoder.update(piece, 2, 12, dst, 0);
+    byte[] words = "_QUJDREVGR0hJSktM\u0001".getBytes(StandardCharsets.US_ASCII);
+    e = assertThrows(IllegalArgumentException.class, () -> decoder.update(words, 1, 17, dst, 0));
+    assertEquals("Invalid base64 character '1' at position 29", e.getMessage());
+  }
+
+  /* Feeds the input in random pieces into a destination with random room above the minimum */
+  private static byte[] decode(Base64.IncrementalDecoder decoder, byte[] encoded, int extra) {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    byte[] dst = new byte[64 + extra];
+    int offset = 0;
+    while (offset < encoded.length) {
+      int n = Math.min(encoded.length - offset, 1 + random.nextInt(80));
+      int room = 1 + random.nextInt(dst.length - 1);
+      int produced = decoder.update(encoded, offset, n, dst, dst.length - room);
+      sink.write(dst, dst.length - room, produced);
+      offset += decoder.consumed();
+    }
+    decoder.finish();
+    return sink.toByteArray();
+  }
+}
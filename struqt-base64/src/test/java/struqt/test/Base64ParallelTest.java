@@ -0,0 +1,99 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base64;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 64 Parallel Test")
+class Base64ParallelTest {
+
+  private static final Random random = new SecureRandom();
+  private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 131071, 131072, 131073, 393215, 1048576, 1048577, 1048578})
+  protected void encodeParallel(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    assertEquals(
+        java.util.Base64.getEncoder().encodeToString(bytes),
+        ascii(Base64.encodeParallel(bytes, false, false, true, pool, 0)));
+    assertEquals(
+        java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+        ascii(Base64.encodeParallel(bytes, true, false, false, pool, 0)));
+    assertEquals(
+        java.util.Base64.getMimeEncoder().encodeToString(bytes),
+        ascii(Base64.encodeParallel(bytes, false, true, true, pool, 0)));
+    assertEquals(
+        java.util.Base64.getMimeEncoder().encodeToString(bytes),
+        ascii(Base64.encodeParallel(bytes, false, true, true)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 98303, 98304, 98305, 300000, 786432, 786433, 786434})
+  protected void decodeParallel(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    assertArrayEquals(
+        bytes, Base64.decodeParallel(java.util.Base64.getEncoder().encode(bytes), pool, 0));
+    assertArrayEquals(
+        bytes,
+        Base64.decodeParallel(
+            java.util.Base64.getUrlEncoder().withoutPadding().encode(bytes), pool, 0));
+    assertArrayEquals(
+        bytes, Base64.decodeParallel(java.util.Base64.getMimeEncoder().encode(bytes), pool, 0));
+    assertArrayEquals(
+        bytes, Base64.decodeParallel(java.util.Base64.getMimeEncoder().encode(bytes)));
+  }
+
+  /* Layouts where the guessed part starts are wrong, so the parts are counted and decoded again */
+  @ParameterizedTest
+  @ValueSource(ints = {98305, 300000, 786434})
+  protected void decodeParallelIrregular(int len) {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    byte[] lines = java.util.Base64.getMimeEncoder(64, new byte[] {'\n'}).encode(bytes);
+    assertArrayEquals(bytes, Base64.decodeParallel(lines, pool, 0));
+    byte[] spaced = java.util.Base64.getMimeEncoder().encode(bytes);
+    int separator = 76 + spaced.length / 3 / 78 * 78;
+    spaced[separator] = ' ';
+    spaced[separator + 1] = ' ';
+    assertArrayEquals(bytes, Base64.decodeParallel(spaced, pool, 0));
+    byte[] chained = new byte[spaced.length + 8];
+    System.arraycopy("QUJD====".getBytes(StandardCharsets.US_ASCII), 0, chained, 0, 8);
+    System.arraycopy(spaced, 0, chained, 8, spaced.length);
+    byte[] expect = new byte[len + 3];
+    System.arraycopy("ABC".getBytes(StandardCharsets.US_ASCII), 0, expect, 0, 3);
+    System.arraycopy(bytes, 0, expect, 3, len);
+    assertArrayEquals(expect, Base64.decodeParallel(chained, pool, 0));
+  }
+
+  @Test
+  protected void decodeParallelInvalid() {
+    byte[] encoded = java.util.Base64.getEncoder().encode(new byte[300000]);
+    encoded[200000] = (byte) 0x80;
+    assertThrows(IllegalArgumentException.class, () -> Base64.decodeParallel(encoded, pool, 0));
+    byte[] single = java.util.Base64.getEncoder().withoutPadding().encode(new byte[300001]);
+    byte[] extra = new byte[single.length + 3];
+    System.arraycopy(single, 0, extra, 0, single.length);
+    extra[single.length] = 'A';
+    extra[single.length + 1] = 'A';
+    extra[single.length + 2] = 'A';
+    assertThrows(IllegalArgumentException.class, () -> Base64.decodeParallel(extra, pool, 0));
+  }
+
+  private static String ascii(byte[] bytes) {
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,95 @@
+package struqt.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import struqt.util.Base64;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Base 64 Stream Test")
+class Base64StreamTest {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 56, 57, 58, 114, 8191, 8192, 8193, 100000})
+  protected void encodeStream(int len) throws IOException {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    assertEquals(
+        java.util.Base64.getMimeEncoder().encodeToString(bytes),
+        encodeStream(bytes, false, true, true));
+    assertEquals(
+        java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+        encodeStream(bytes, true, false, false));
+    assertEquals(
+        java.util.Base64.getEncoder().encodeToString(bytes),
+        encodeStream(bytes, false, false, true));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 56, 57, 58, 114, 8191, 8192, 8193, 100000})
+  protected void decodeStream(int len) throws IOException {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    assertArrayEquals(bytes, decodeStream(java.util.Base64.getMimeEncoder().encode(bytes)));
+    assertArrayEquals(bytes, decodeStream(java.util.Base64.getUrlEncoder().encode(bytes)));
+    assertArrayEquals(
+        bytes, decodeStream(java.util.Base64.getEncoder().withoutPadding().encode(bytes)));
+  }
+
+  @Test
+  protected void decodeInvalid() {
+    assertThrows(IOException.class, () -> decodeStream(new byte[] {'Q', 'U', (byte) 0x80}));
+    assertThrows(IOException.class, () -> decodeStream(new byte[] {'Q', 'U', 'J', 'D', 'R'}));
+  }
+
+  private static String encodeStream(byte[] bytes, boolean url, boolean mime, boolean padding)
+      throws IOException {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (OutputStream out = Base64.wrapEncoder(sink, url, mime, padding)) {
+      int offset = 0;
+      while (offset < bytes.length) {
+        int n = Math.min(bytes.length - offset, 1 + random.nextInt(100));
+        if (n == 1) {
+          out.write(bytes[offset]);
+        } else {
+          out.write(bytes, offset, n);
+        }
+        offset += n;
+      }
+    }
+    return new String(sink.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  private static byte[] decodeStream(byte[] encoded) throws IOException {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (InputStream in = Base64.wrapDecoder(new ByteArrayInputStream(encoded))) {
+      byte[] buffer = new byte[1 + random.nextInt(100)];
+      int b = in.read();
+      while (b >= 0) {
+        sink.write(b);
+        int n = in.read(buffer);
+        if (n < 0) {
+          break;
+        }
+        sink.write(buffer, 0, n);
+        b = in.read();
+      }
+    }
+    return sink.toByteArray();
+  }
+}
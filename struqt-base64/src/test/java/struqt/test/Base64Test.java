@@ -6,11 +6,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import struqt.util.Base64;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DisplayName("Base 64 Encoding Test")
 class Base64Test {
@@ -67,4 +71,55 @@ class Base64Test {
     // log.info("\n{}", expect);
     assertEquals(expect, Base64.encodeToMime(bytes));
   }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 56, 57, 58, 113, 114, 115, 229})
+  protected void testBas64Offsets(int len) {
+    byte[] bytes = new byte[len + 5];
+    random.nextBytes(bytes);
+    byte[] input = Arrays.copyOfRange(bytes, 3, 3 + len);
+    String expect = java.util.Base64.getMimeEncoder().encodeToString(input);
+    int count = Base64.encodedLength(len, false, true, true);
+    assertEquals(expect.length(), count);
+    byte[] ascii = new byte[count + 2];
+    assertEquals(count, Base64.encode(bytes, 3, len, ascii, 1, false, true, true));
+    assertEquals(expect, new String(ascii, 1, count, StandardCharsets.US_ASCII));
+    char[] chars = new char[count + 2];
+    assertEquals(count, Base64.encode(bytes, 3, len, chars, 2, false, true, true));
+    assertEquals(expect, new String(chars, 2, count));
+    expect = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(input);
+    count = Base64.encodedLength(len, true, false, false);
+    assertEquals(expect.length(), count);
+    assertEquals(count, Base64.encode(bytes, 3, len, chars, 0, true, false, false));
+    assertEquals(expect, new String(chars, 0, count));
+    expect = java.util.Base64.getEncoder().encodeToString(input);
+    assertEquals(expect.length(), Base64.encode(bytes, 3, len, ascii, 0));
+    assertEquals(expect, new String(ascii, 0, expect.length(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  protected void testBas64OffsetsOutOfBounds() {
+    byte[] bytes = new byte[6];
+    assertThrows(IllegalArgumentException.class, () -> Base64.encode(bytes, 1, 6, new byte[8], 0));
+    assertThrows(IllegalArgumentException.class, () -> Base64.encode(bytes, 0, 6, new byte[8], 1));
+    assertThrows(IllegalArgumentException.class, () -> Base64.encode(bytes, -1, 3, new char[8], 0));
+    assertThrows(IllegalArgumentException.class, () -> Base64.encode(bytes, 0, 4, new char[7], 0));
+    assertThrows(
+        IllegalArgumentException.class, () -> Base64.encodedLength(-1, false, false, true));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 56, 57, 58, 113, 114, 115, 229})
+  protected void testBas64Appendable(int len) throws IOException {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    String expect = java.util.Base64.getMimeEncoder().encodeToString(bytes);
+    StringBuilder builder = new StringBuilder("<");
+    assertEquals(expect.length(), Base64.encode(bytes, builder, false, true, true));
+    assertEquals("<" + expect, builder.toString());
+    expect = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    StringWriter writer = new StringWriter();
+    assertEquals(expect.length(), Base64.encode(bytes, writer, true, false, false));
+    assertEquals(expect, writer.toString());
+  }
 }
@@ -0,0 +1,49 @@
+package struqt.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Small mapped windows, so that the window boundaries are crossed many times */
+@DisplayName("Base 64 File Chunk Test")
+class Base64FileChunkTest {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(ints = {56, 57, 58, 113, 114, 115, 171, 1000, 5000})
+  protected void encodeMimeChunks(int len) throws IOException {
+    byte[] bytes = new byte[len];
+    random.nextBytes(bytes);
+    byte[] mime = Base64.encodeToMime(bytes).getBytes(StandardCharsets.US_ASCII);
+    for (int chunk : new int[] {57, 114, 57 * 7}) {
+      Path in = Files.createTempFile("base64", ".bin");
+      Path text = Files.createTempFile("base64", ".txt");
+      Path out = Files.createTempFile("base64", ".bin");
+      try {
+        Files.write(in, bytes);
+        assertEquals(mime.length, Base64.encodeFile(in, text, false, true, true, chunk));
+        assertArrayEquals(mime, Files.readAllBytes(text));
+        for (int window : new int[] {5, 78, 301, chunk}) {
+          assertEquals(len, Base64.decodeFile(text, out, window));
+          assertEquals(len, Files.size(out));
+          assertArrayEquals(bytes, Files.readAllBytes(out));
+        }
+      } finally {
+        Files.delete(in);
+        Files.delete(text);
+        Files.delete(out);
+      }
+    }
+  }
+}
@@ -27,4 +27,69 @@ public interface StreamReader {
    * @since 1.2
    */
   int read() throws IOException;
+
+  /**
+   * Reads up to {@code len} bytes from this byte stream into {@code b} from {@code off}. It returns
+   * fewer bytes only when the end of the stream is reached.
+   *
+   * <p>The default implementation calls {@link #read()} for every byte. Implementations that hold
+   * their bytes in a buffer should override it with a bulk copy.
+   *
+   * @param b The byte array where the bytes are read into
+   * @param off Index in {@code b} where the first byte is written to
+   * @param len Max count of bytes to read
+   * @return the count of bytes read, or {@code -1} if the end of the stream is reached before any
+   *     byte is read
+   * @throws java.io.IOException if an I/O error occurs
+   * @exception IllegalArgumentException If the range is outside the bounds of {@code b}
+   * @since 1.3
+   */
+  default int read(final byte[] b, final int off, final int len) throws IOException {
+    if (off < 0 || len < 0 || off > b.length - len) {
+      throw new IllegalArgumentException("The range is outside the bounds of the bytes array");
+    }
+    int count = 0;
+    while (count < len) {
+      final int current = read();
+      if (-1 == current) {
+        return count == 0 && len > 0 ? -1 : count;
+      }
+      b[off + count] = (byte) current;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Copies up to {@code len} of the next bytes of this byte stream into {@code b} from {@code off}
+   * without consuming them, so that the next reads return the same bytes. It may copy fewer bytes
+   * than are available, but never blocks.
+   *
+   * <p>The default implementation copies nothing, which means peeking is not supported. Decoders
+   * that peek fall back to reading one byte at a time then.
+   *
+   * @param b The byte array where the bytes are copied to
+   * @param off Index in {@code b} where the first byte is written to
+   * @param len Max count of bytes to copy
+   * @return the count of bytes copied
+   * @throws java.io.IOException if an I/O error occurs
+   * @since 1.3
+   */
+  default int peek(final byte[] b, final int off, final int len) throws IOException {
+    return 0;
+  }
+
+  /**
+   * Returns an estimate of the count of bytes that can be read from this byte stream without
+   * blocking, as {@link java.io.InputStream#available()} does.
+   *
+   * <p>The default implementation returns 0.
+   *
+   * @return the estimated count of bytes, or 0 if it is unknown
+   * @throws java.io.IOException if an I/O error occurs
+   * @since 1.3
+   */
+  default int available() throws IOException {
+    return 0;
+  }
 }
@@ -26,4 +26,26 @@ public interface StreamWriter {
    * @since 1.2
    */
   void write(int b) throws IOException;
+
+  /**
+   * Writes {@code len} bytes of {@code b} from {@code off} to this byte stream.
+   *
+   * <p>The default implementation calls {@link #write(int)} for every byte. Implementations that
+   * hold their bytes in a buffer should override it with a bulk copy.
+   *
+   * @param b The byte array of the bytes to write
+   * @param off Index of the first byte in {@code b}
+   * @param len Count of bytes to write
+   * @throws java.io.IOException if an I/O error occurs
+   * @exception IllegalArgumentException If the range is outside the bounds of {@code b}
+   * @since 1.3
+   */
+  default void write(final byte[] b, final int off, final int len) throws IOException {
+    if (off < 0 || len < 0 || off > b.length - len) {
+      throw new IllegalArgumentException("The range is outside the bounds of the bytes array");
+    }
+    for (int i = off; i < off + len; i++) {
+      write(b[i]);
+    }
+  }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.io.IOException;
+
+/**
+ * Helpers shared by the stream methods of the variable length integer codecs.
+ *
+ * <p>The bulk and peek methods of {@link StreamReader} and {@link StreamWriter} only pay off when a
+ * stream overrides them, and lambdas and method references never do. Whether a stream class does
+ * is looked up once per class, so the codecs call the byte methods of other streams directly,
+ * without a window buffer and without a {@code peek} call that would return nothing.
+ *
+ * @author Kang Wang
+ * @since 1.3
+ */
+final class Streams {
+
+  /** Byte count of a window, enough for the longest encoding */
+  static final int WINDOW = 10;
+
+  private static final ClassValue<Boolean> PEEKS =
+      overrides(StreamReader.class, "peek", byte[].class, int.class, int.class);
+
+  private static final ClassValue<Boolean> WRITES_BULK =
+      overrides(StreamWriter.class, "write", byte[].class, int.class, int.class);
+
+  /* One window per thread, taken out while in use so that nested calls never share it */
+  private static final ThreadLocal<byte[][]> WINDOWS =
+      ThreadLocal.withInitial(() -> new byte[][] {new byte[WINDOW]});
+
+  private Streams() {}
+
+  /* Whether the class of a stream overrides the default method of the interface */
+  private static ClassValue<Boolean> overrides(
+      final Class<?> base, final String name, final Class<?>... types) {
+    return new ClassValue<Boolean>() {
+      @Override
+      protected Boolean computeValue(final Class<?> type) {
+        try {
+          return type.getMethod(name, types).getDeclaringClass() != base;
+        } catch (NoSuchMethodException e) {
+          return Boolean.FALSE;
+        }
+      }
+    };
+  }
+
+  static boolean peeks(final StreamReader source) {
+    return PEEKS.get(source.getClass());
+  }
+
+  static boolean writesBulk(final StreamWriter destination) {
+    return WRITES_BULK.get(destination.getClass());
+  }
+
+  /**
+   * Takes the window of this thread, or a new one if an outer call on this thread is using it.
+   * The window goes back with {@link #release(byte[])}; if it never does, the next call simply
+   * allocates another one.
+   */
+  static byte[] claim() {
+    final byte[][] holder = WINDOWS.get();
+    final byte[] window = holder[0];
+    if (window == null) {
+      return new byte[WINDOW];
+    }
+    holder[0] = null;
+    return window;
+  }
+
+  static void release(final byte[] window) {
+    WINDOWS.get()[0] = window;
+  }
+
+  /* Reads and drops the count of bytes that were peeked and decoded already */
+  static void consume(final StreamReader source, final byte[] window, final int count)
+      throws IOException {
+    int done = 0;
+    while (done < count) {
+      final int n = source.read(window, done, count - done);
+      if (n <= 0) {
+        throw new IOException("The source byte stream ends before the peeked bytes are read");
+      }
+      done += n;
+    }
+  }
+}
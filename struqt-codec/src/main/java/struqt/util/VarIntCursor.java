@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A cursor that decodes variable length integers one after another from a byte array or a byte
+ * buffer, and reports malformed input with a status code instead of an exception.
+ *
+ * <p>Every {@code read} method returns the count of bytes consumed, from 1 to 10, and the decoded
+ * value is then returned by {@link #value()}. If no value can be decoded, it returns {@link #END},
+ * {@link #TRUNCATED} or {@link #MALFORMED} instead, and neither the position nor the value is
+ * changed. A typical loop looks like:
+ *
+ * <pre>
+ * VarIntCursor cursor = new VarIntCursor(bytes);
+ * while (cursor.readInt64() &gt; 0) {
+ *   consume(cursor.value());
+ * }
+ * </pre>
+ *
+ * <p>When at least 8 bytes remain, they are loaded as one little endian {@code long}. The
+ * terminating byte is the lowest one with a clear high bit, found with a count of trailing zeros,
+ * and the 7-bit groups before it are masked and packed together without a branch. Only the 9 and
+ * 10 byte encodings read their last bytes one at a time.
+ *
+ * <p>A cursor over a {@link ByteBuffer} shares its content but not its position and limit: it
+ * starts at the position of the buffer and stops at its limit, and {@link #position()} is an
+ * index of the buffer. A cursor is not thread safe.
+ *
+ * @author Kang Wang
+ * @since 1.3
+ */
+public final class VarIntCursor {
+
+  /** Status of a read when no byte remains */
+  public static final int END = 0;
+
+  /** Status of a read when the input ends before the terminating byte */
+  public static final int TRUNCATED = -1;
+
+  /** Status of a read when there is no terminating byte in time or the value overflows */
+  public static final int MALFORMED = -2;
+
+  private static final int ENCODED_BYTE_MAX = 10;
+  private static final int INT32_BYTE_MAX = 5;
+  private static final long INT32_CONTINUATION_BITS = 0x8080808080L;
+
+  private final ByteBuffer view;
+  private final int start;
+  private final int limit;
+  private int position;
+  private long value;
+
+  /**
+   * Creates a cursor over the whole {@code bytes} array.
+   *
+   * @param bytes The byte array of the encoded values
+   * @since 1.3
+   */
+  public VarIntCursor(final byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Creates a cursor over {@code length} bytes of the {@code bytes} array from {@code offset}.
+   *
+   * @param bytes The byte array of the encoded values
+   * @param offset Index of the first byte
+   * @param length Count of bytes
+   * @exception IllegalArgumentException If the range is outside the bounds of {@code bytes}
+   * @since 1.3
+   */
+  public VarIntCursor(final byte[] bytes, final int offset, final int length) {
+    if (offset < 0 || length < 0 || offset > bytes.length - length) {
+      throw new IllegalArgumentException("The range is outside the bounds of the bytes array");
+    }
+    this.view = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    this.start = offset;
+    this.limit = offset + length;
+    this.position = offset;
+  }
+
+  /**
+   * Creates a cursor over the remaining bytes of the {@code buffer}. Heap and direct buffers in
+   * either byte order are supported, and the buffer itself is not modified.
+   *
+   * @param buffer The byte buffer of the encoded values
+   * @since 1.3
+   */
+  public VarIntCursor(final ByteBuffer buffer) {
+    this.view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    this.start = buffer.position();
+    this.limit = buffer.limit();
+    this.position = start;
+  }
+
+  /**
+   * Returns the index of the next byte to be read.
+   *
+   * @return The index in the byte array or byte buffer
+   * @since 1.3
+   */
+  public int position() {
+    return position;
+  }
+
+  /**
+   * Moves the cursor to the byte at {@code position}.
+   *
+   * @param position Index in the byte array or byte buffer
+   * @return This cursor
+   * @exception IllegalArgumentException If {@code position} is outside the range of the cursor
+   * @since 1.3
+   */
+  public VarIntCursor position(final int position) {
+    if (position < start || position > limit) {
+      throw new IllegalArgumentException(
+          "The position " + position + " is outside [" + start + ", " + limit + "]");
+    }
+    this.position = position;
+    return this;
+  }
+
+  /**
+   * Returns the count of bytes between the position and the end of the cursor.
+   *
+   * @return The count of bytes
+   * @since 1.3
+   */
+  public int remaining() {
+    return limit - position;
+  }
+
+  /**
+   * Returns the value decoded by the last successful read.
+   *
+   * @return The value, as a signed or unsigned integer depending on the read method
+   * @since 1.3
+   */
+  public long value() {
+    return value;
+  }
+
+  /**
+   * Reads a 64-bit signed integer encoded with signed LEB128, as {@link VarLengthInt64} does.
+   *
+   * <p>The 10th byte of an encoding may only hold the sign extension of bit 63, which is {@code
+   * 0x00} or {@code 0x7F}.
+   *
+   * @return The count of bytes consumed, or {@link #END}, {@link #TRUNCATED} or {@link #MALFORMED}
+   * @since 1.3
+   */
+  public int readInt64() {
+    return read(true);
+  }
+
+  /**
+   * Reads a 64-bit unsigned integer encoded with unsigned LEB128, as {@link VarLengthUInt64} does.
+   * Values above {@link Long#MAX_VALUE} are negative.
+   *
+   * <p>The 10th byte of an encoding may only hold bit 63, which is {@code 0x00} or {@code 0x01}.
+   *
+   * @return The count of bytes consumed, or {@link #END}, {@link #TRUNCATED} or {@link #MALFORMED}
+   * @since 1.3
+   */
+  public int readUInt64() {
+    return read(false);
+  }
+
+  /**
+   * Reads a 32-bit signed integer encoded with signed LEB128, as {@link VarLengthInt32} does. The
+   * read is {@link #MALFORMED} if there is no terminating byte within 5 bytes or the value is
+   * outside the {@code int} range.
+   *
+   * @return The count of bytes consumed, or {@link #END}, {@link #TRUNCATED} or {@link #MALFORMED}
+   * @since 1.3
+   */
+  public int readInt32() {
+    final int remaining = limit - position;
+    if (remaining >= 8) {
+      final long bits = view.getLong(position);
+      final long ends = ~bits & INT32_CONTINUATION_BITS;
+      if (ends == 0L) {
+        return MALFORMED;
+      }
+      final int size = (Long.numberOfTrailingZeros(ends) >>> 3) + 1;
+      return acceptInt32(extend(VarLengthInt64.pack(bits & (ends ^ (ends - 1L))), 7 * size), size);
+    }
+    long payload = 0L;
+    for (int i = 0; i < remaining && i < INT32_BYTE_MAX; i++) {
+      final int current = view.get(position + i);
+      payload |= (0x7FL & current) << (7 * i);
+      if (current >= 0) {
+        return acceptInt32(extend(payload, 7 * (i + 1)), i + 1);
+      }
+    }
+    return remaining == 0 ? END : remaining < INT32_BYTE_MAX ? TRUNCATED : MALFORMED;
+  }
+
+  private int read(final boolean signed) {
+    final int remaining = limit - position;
+    if (remaining >= 8) {
+      final long bits = view.getLong(position);
+      final long ends = ~bits & VarLengthInt64.CONTINUATION_BITS;
+      if (ends != 0L) {
+        final int size = (Long.numberOfTrailingZeros(ends) >>> 3) + 1;
+        final long payload = VarLengthInt64.pack(bits & (ends ^ (ends - 1L)));
+        return accept(signed ? extend(payload, 7 * size) : payload, size);
+      }
+      return readLong(VarLengthInt64.pack(bits), signed);
+    }
+    long payload = 0L;
+    for (int i = 0; i < remaining; i++) {
+      final int current = view.get(position + i);
+      payload |= (0x7FL & current) << (7 * i);
+      if (current >= 0) {
+        return accept(signed ? extend(payload, 7 * (i + 1)) : payload, i + 1);
+      }
+    }
+    return remaining == 0 ? END : TRUNCATED;
+  }
+
+  /* Reads the 9th and 10th bytes after 8 continuation bytes, which hold the low 56 bits */
+  private int readLong(final long low, final boolean signed) {
+    if (limit - position < 9) {
+      return TRUNCATED;
+    }
+    final int b8 = view.get(position + 8);
+    if (b8 >= 0) {
+      final long payload = low | (long) b8 << 56;
+      return accept(signed ? extend(payload, 63) : payload, 9);
+    }
+    if (limit - position < ENCODED_BYTE_MAX) {
+      return TRUNCATED;
+    }
+    final int b9 = view.get(position + 9);
+    if (b9 != (signed ? (b9 & 1) * 0x7F : (b9 & 1))) {
+      return MALFORMED;
+    }
+    return accept(low | (0x7FL & b8) << 56 | (long) b9 << 63, ENCODED_BYTE_MAX);
+  }
+
+  private int acceptInt32(final long value, final int size) {
+    return value == (int) value ? accept(value, size) : MALFORMED;
+  }
+
+  private int accept(final long value, final int size) {
+    this.value = value;
+    this.position += size;
+    return size;
+  }
+
+  private static long extend(final long payload, final int bits) {
+    return payload << (64 - bits) >> (64 - bits);
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * This class implements a method of variable length 32-bit signed integer encoding and
+ * corresponding decoding, for the {@code int32} fields of the data packet.
+ *
+ * <p>The encoding format is the same signed LEB128 as {@link VarLengthInt64}, so an {@code int}
+ * encoded here decodes to the same value with {@link VarLengthInt64#decode(byte[])} and the other
+ * way around for values in the {@code int} range. Encodings take at most 5 bytes and all the
+ * arithmetic is on {@code int}.
+ *
+ * @author Kang Wang
+ * @since 1.3
+ */
+public final class VarLengthInt32 {
+
+  private static final int BIT_COUNT = 32;
+  private static final int ENCODED_BYTE_MAX = 5;
+
+  /* Encoded size by leading zero count of the magnitude bits, plus one bit for the sign */
+  private static final byte[] SIZES = new byte[BIT_COUNT + 1];
+
+  static {
+    for (int i = 0; i <= BIT_COUNT; i++) {
+      SIZES[i] = (byte) ((BIT_COUNT + 7 - i) / 7);
+    }
+  }
+
+  private VarLengthInt32() {}
+
+  /**
+   * Encodes the specified {@code value} argument with signed LEB128 and writes the encoding result
+   * to the {@code destination} byte stream argument, with one bulk call if the class of the
+   * destination overrides {@link StreamWriter#write(byte[], int, int)}.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte stream argument where the encoding result is
+   *     written to
+   * @return An integer that indicates how many bytes have been written
+   * @throws java.io.IOException If an I/O error occurs
+   * @since 1.3
+   */
+  public static int encode(final int value, final StreamWriter destination) throws IOException {
+    final int size = sizeof(value);
+    if (!Streams.writesBulk(destination)) {
+      int x = value;
+      for (int i = 1; i < size; i++) {
+        destination.write(0x80 | (0x7F & x));
+        x >>= 7;
+      }
+      destination.write(0x7F & x);
+      return size;
+    }
+    final byte[] buffer = Streams.claim();
+    encodeBytes(value, size, buffer, 0);
+    destination.write(buffer, 0, size);
+    Streams.release(buffer);
+    return size;
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with signed LEB128 and writes the encoding result
+   * to the {@code destination} byte array.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte array argument where the encoding result is
+   *     written to
+   * @return An integer that indicates how many bytes have been written
+   * @since 1.3
+   */
+  public static int encode(final int value, final byte[] destination) {
+    return encode(value, destination, 0);
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with signed LEB128 and writes the encoding result
+   * to the {@code destination} byte array.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte array argument where the encoding result is
+   *     written to
+   * @param offset Starting position in the {@code destination} byte array
+   * @return An integer that indicates how many bytes have been written
+   * @exception NullPointerException If the {@code destination} argument is null
+   * @exception IllegalArgumentException If the {@code offset} argument is negative or the encoding
+   *     from {@code offset} is outside the bounds of the {@code destination} array
+   * @since 1.3
+   */
+  public static int encode(final int value, final byte[] destination, final int offset) {
+    final int size = sizeof(value);
+    if (offset < 0) {
+      throw new IllegalArgumentException("The offset argument is negative");
+    }
+    if (offset > destination.length - size) {
+      throw new IllegalArgumentException(
+          "The result of offset + size is outside the bounds of the bytes array");
+    }
+    return encodeBytes(value, size, destination, offset) - offset;
+  }
+
+  /* Writes the encoding of the given size without checking the bounds, returns the index after */
+  private static int encodeBytes(
+      final int value, final int size, final byte[] destination, final int offset) {
+    final int end = offset + size - 1;
+    destination[end] = (byte) (0x7F & (value >> (7 * (size - 1))));
+    switch (size) {
+      case 5:
+        destination[offset + 3] = (byte) (0x80 | (value >> 21));
+        // fall through
+      case 4:
+        destination[offset + 2] = (byte) (0x80 | (value >> 14));
+        // fall through
+      case 3:
+        destination[offset + 1] = (byte) (0x80 | (value >> 7));
+        // fall through
+      case 2:
+        destination[offset] = (byte) (0x80 | value);
+        // fall through
+      default:
+        return end + 1;
+    }
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with signed LEB128 and writes the encoding result
+   * to the {@code destination} byte buffer at its position, which is advanced by the count of bytes
+   * written. Heap and direct buffers are both supported.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte buffer where the encoding result is written to
+   * @return An integer that indicates how many bytes have been written
+   * @exception IllegalArgumentException If the {@code destination} has not enough remaining space,
+   *     in which case it is not modified
+   * @since 1.3
+   */
+  public static int encode(final int value, final ByteBuffer destination) {
+    final int size = sizeof(value);
+    final int position = destination.position();
+    if (size > destination.remaining()) {
+      throw new IllegalArgumentException(
+          "The encoding needs "
+              + size
+              + " bytes but only "
+              + destination.remaining()
+              + " remain in the destination buffer");
+    }
+    if (destination.hasArray()) {
+      encodeBytes(value, size, destination.array(), destination.arrayOffset() + position);
+    } else {
+      int x = value;
+      for (int i = 1; i < size; i++) {
+        destination.put(position + i - 1, (byte) (0x80 | x));
+        x >>= 7;
+      }
+      destination.put(position + size - 1, (byte) (0x7F & x));
+    }
+    ((Buffer) destination).position(position + size);
+    return size;
+  }
+
+  /**
+   * Calculates how many bytes will return when encoding the specified {@code value} argument with
+   * signed LEB128 algorithm, with one table lookup by {@link Integer#numberOfLeadingZeros(int)} of
+   * {@code value ^ (value >> 31)}.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @return The result byte count, from 1 to 5
+   * @since 1.3
+   */
+  public static int sizeof(final int value) {
+    return SIZES[Integer.numberOfLeadingZeros(value ^ (value >> 31))];
+  }
+
+  /**
+   * Decodes a 32-bit signed integer from the {@code source} byte array argument.
+   *
+   * @param source The {@code source} byte array
+   * @return A 32-bit signed integer
+   * @since 1.3
+   */
+  public static int decode(final byte[] source) {
+    return decode(source, 0);
+  }
+
+  /**
+   * Decodes a 32-bit signed integer from the {@code source} byte array argument.
+   *
+   * @param source The {@code source} byte array
+   * @param offset Starting position in the {@code source} byte array
+   * @return A 32-bit signed integer
+   * @exception IllegalArgumentException If the {@code offset} of the {@code source} can't be read
+   *     or be decoded, or the value is outside the {@code int} range
+   * @see VarIntCursor#readInt32() for decoding a sequence of values without exceptions
+   * @since 1.3
+   */
+  public static int decode(final byte[] source, final int offset) {
+    if (null == source || offset < 0 || offset >= source.length) {
+      throw new IllegalArgumentException(
+          "No byte available at offset position " + offset + " of the source byte array");
+    }
+    final int max = Math.min(source.length - offset, ENCODED_BYTE_MAX);
+    int result = 0;
+    for (int i = 0; i < max; i++) {
+      final int current = source[offset + i];
+      result |= (0x7F & current) << (7 * i);
+      if (current >= 0) {
+        return extend(result, i, current, "offset position " + offset + " of the source");
+      }
+    }
+    throw new IllegalArgumentException(
+        "No ending byte after reading "
+            + max
+            + " bytes which means offset position "
+            + offset
+            + " of the source is not a well formed LEB128");
+  }
+
+  /**
+   * Decodes a 32-bit signed integer from the {@code source} byte buffer at its position, which is
+   * advanced past the decoded bytes. Heap and direct buffers are both supported.
+   *
+   * @param source The {@code source} byte buffer
+   * @return A 32-bit signed integer
+   * @exception IllegalArgumentException If the bytes at the position of the {@code source} can't
+   *     be read or be decoded, in which case the position is not changed
+   * @since 1.3
+   */
+  public static int decode(final ByteBuffer source) {
+    final int position = source.position();
+    final int max = Math.min(source.remaining(), ENCODED_BYTE_MAX);
+    if (max == 0) {
+      throw new IllegalArgumentException(
+          "No byte available at position " + position + " of the source buffer");
+    }
+    int result = 0;
+    for (int i = 0; i < max; i++) {
+      final int current = source.get(position + i);
+      result |= (0x7F & current) << (7 * i);
+      if (current >= 0) {
+        result = extend(result, i, current, "position " + position + " of the source buffer");
+        ((Buffer) source).position(position + i + 1);
+        return result;
+      }
+    }
+    throw new IllegalArgumentException(
+        "No ending byte after reading "
+            + max
+            + " bytes which means position "
+            + position
+            + " of the source buffer is not a well formed LEB128");
+  }
+
+  /**
+   * Decodes a 32-bit signed integer from the {@code source} byte stream argument.
+   *
+   * <p>If the class of the source overrides {@link StreamReader#peek(byte[], int, int)} and the
+   * peeked bytes hold the whole encoding, it is decoded from them and consumed with one bulk read.
+   * Otherwise the bytes are read one at a time.
+   *
+   * @param source The {@code source} byte stream
+   * @return A 32-bit signed integer
+   * @throws java.io.IOException If an I/O error occurs
+   * @exception IllegalArgumentException If the next bytes of the {@code source} can't be decoded
+   * @since 1.3
+   */
+  public static int decode(final StreamReader source) throws IOException {
+    if (Streams.peeks(source)) {
+      final byte[] window = Streams.claim();
+      final int peeked = source.peek(window, 0, ENCODED_BYTE_MAX);
+      for (int i = 0; i < peeked; i++) {
+        if (window[i] >= 0) {
+          final int result = decode(window, 0);
+          Streams.consume(source, window, i + 1);
+          Streams.release(window);
+          return result;
+        }
+      }
+      Streams.release(window);
+    }
+    int result = 0;
+    for (int i = 0; i < ENCODED_BYTE_MAX; i++) {
+      final int current = source.read();
+      if (-1 == current) {
+        if (i == 0) {
+          throw new IllegalArgumentException("Reaches the end of the source byte steam");
+        }
+        throw new IllegalArgumentException(
+            "No ending byte after reading "
+                + i
+                + " bytes which means the source byte stream is not a well formed LEB128");
+      }
+      result |= (0x7F & current) << (7 * i);
+      if (current < 0x80) {
+        return extend(result, i, current, "the source byte stream");
+      }
+    }
+    throw new IllegalArgumentException(
+        "No ending byte after reading "
+            + ENCODED_BYTE_MAX
+            + " bytes which means the source byte stream is not a well formed LEB128");
+  }
+
+  /*
+   * Extends the sign of the value that ends with the byte at index. The 5th byte holds bits 28 to
+   * 34, where the top three must repeat bit 31, anything else overflows 32 bits.
+   */
+  private static int extend(
+      final int result, final int index, final int last, final String where) {
+    if (index < ENCODED_BYTE_MAX - 1) {
+      final int shift = BIT_COUNT - 7 * (index + 1);
+      return result << shift >> shift;
+    }
+    if ((last >>> 3) != 0 && (last >>> 3) != 0x0F) {
+      throw new IllegalArgumentException(
+          "The result overflows after reading "
+              + ENCODED_BYTE_MAX
+              + " bytes which means "
+              + where
+              + " is not a well formed LEB128");
+    }
+    return result;
+  }
+}
@@ -6,6 +6,9 @@
 package struqt.util;
 
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * This class implements a method of variable length 64-bit signed integer encoding and
@@ -26,6 +29,16 @@ public final class VarLengthInt64 {
 
   private static final int BIT_COUNT = 64;
   private static final int ENCODED_BYTE_MAX = 10;
+  static final long CONTINUATION_BITS = 0x8080808080808080L;
+
+  /* Encoded size by leading zero count of the magnitude bits, plus one bit for the sign */
+  private static final byte[] SIZES = new byte[BIT_COUNT + 1];
+
+  static {
+    for (int i = 0; i <= BIT_COUNT; i++) {
+      SIZES[i] = (byte) ((BIT_COUNT + 7 - i) / 7);
+    }
+  }
 
   private VarLengthInt64() {}
 
@@ -33,31 +46,34 @@ public final class VarLengthInt64 {
    * Encodes the specified {@code value} argument with signed LEB128 algorithm and writes the
    * encoding result to the {@code destination} byte stream argument.
    *
+   * <p>If the class of the destination overrides {@link StreamWriter#write(byte[], int, int)}, the
+   * value is encoded into a small per-thread buffer first, which is written with one bulk call.
+   * Otherwise the bytes are written one at a time, without the buffer.
+   *
    * @param value The {@code value} argument to be encoded
    * @param destination The {@code destination} byte stream argument where the encoding result is
    *     written to
    * @return An integer that indicates how many bytes have been written
    * @throws java.io.IOException If an I/O error occurs
-   * @see java.io.OutputStream#write(int)
+   * @see java.io.OutputStream#write(byte[], int, int)
    * @since 1.2
    */
   public static int encode(final long value, final StreamWriter destination) throws IOException {
-    long x = value;
-    int count = 0;
-    long current;
-    boolean sign; /* sign bit of byte is set */
-    boolean more = true;
-    while (more) {
-      current = (0x7FL & x);
-      x >>= 7;
-      sign = (0x40L == (0x40L & current));
-      if ((sign && -1L == x) || (!sign && 0L == x)) {
-        more = false;
+    final int size = sizeof(value);
+    if (!Streams.writesBulk(destination)) {
+      long x = value;
+      for (int i = 1; i < size; i++) {
+        destination.write((int) (0x80L | (0x7FL & x)));
+        x >>= 7;
       }
-      destination.write((int) ((more ? 0x80L : 0L) | current));
-      count++;
+      destination.write((int) (0x7FL & x));
+      return size;
     }
-    return count;
+    final byte[] buffer = Streams.claim();
+    encodeBytes(value, size, buffer, 0);
+    destination.write(buffer, 0, size);
+    Streams.release(buffer);
+    return size;
   }
 
   /**
@@ -71,7 +87,7 @@ public final class VarLengthInt64 {
    * @since 1.2
    */
   public static int encode(long value, byte[] destination) {
-    return encode(value, sizeof(value), destination, 0);
+    return encode(value, destination, 0);
   }
 
   /**
@@ -86,6 +102,11 @@ public final class VarLengthInt64 {
    * @since 1.2
    */
   public static int encode(long value, byte[] destination, int offset) {
+    if ((value + 0x40L) >>> 7 == 0L && offset >= 0 && offset < destination.length) {
+      /* Values from -64 to 63, the most common ones, skip the size table and the switch */
+      destination[offset] = (byte) (0x7FL & value);
+      return 1;
+    }
     return encode(value, sizeof(value), destination, offset);
   }
 
@@ -134,57 +155,172 @@ public final class VarLengthInt64 {
       throw new IllegalArgumentException(
           "The result of offset + size is outside the bounds of the bytes array");
     }
-    long x = value;
-    int index = offset;
-    long current;
-    boolean sign; /* sign bit of byte is set */
-    boolean more = true;
-    while (more) {
-      current = (0x7FL & x);
-      x >>= 7;
-      sign = (0x40L == (0x40L & current));
-      if ((sign && -1L == x) || (!sign && 0L == x)) {
-        more = false;
+    return encodeBytes(value, sizeof(value), destination, offset) - offset;
+  }
+
+  /**
+   * Encodes {@code n} values of {@code src} from {@code off} with signed LEB128 one after another
+   * into the {@code dst} byte array from {@code dstOff}. The output is the same as encoding the
+   * values one by one, but the arguments are checked once per batch and values of up to 3 bytes
+   * are written without a loop. When {@code dst} has room for {@code n} encodings of 10 bytes, no
+   * value is checked at all; otherwise each value is checked against the bytes left.
+   *
+   * @param src The array of values to be encoded
+   * @param off Index of the first value in {@code src}
+   * @param n Count of values to be encoded
+   * @param dst The byte array where the encoding results are written to
+   * @param dstOff Starting position in the {@code dst} byte array
+   * @return An integer that indicates how many bytes have been written
+   * @exception IllegalArgumentException If a range is outside the bounds of its array or {@code
+   *     dst} is too small, in which case the bytes of {@code dst} from {@code dstOff} are
+   *     unspecified
+   * @since 1.3
+   */
+  public static int encodeAll(
+      final long[] src, final int off, final int n, final byte[] dst, final int dstOff) {
+    if (off < 0 || n < 0 || off > src.length - n) {
+      throw new IllegalArgumentException("The range of values is outside the bounds of src");
+    }
+    if (dstOff < 0 || dstOff > dst.length) {
+      throw new IllegalArgumentException("The dstOff argument is outside the bounds of dst");
+    }
+    final int end = off + n;
+    int d = dstOff;
+    if (n <= (dst.length - dstOff) / ENCODED_BYTE_MAX) {
+      /* Room for n encodings of the longest size, so no value needs a check */
+      for (int i = off; i < end; i++) {
+        d = encodeUnrolled(src[i], dst, d);
       }
-      destination[index] = (byte) ((more ? 0x80L : 0L) | current);
-      index++;
+      return d - dstOff;
+    }
+    for (int i = off; i < end; i++) {
+      final long v = src[i];
+      if (dst.length - d < ENCODED_BYTE_MAX && sizeof(v) > dst.length - d) {
+        throw new IllegalArgumentException(
+            "The dst byte array is too small for the value at index " + i);
+      }
+      d = encodeUnrolled(v, dst, d);
+    }
+    return d - dstOff;
+  }
+
+  /* Writes values of up to 3 bytes without the size table, unchecked, and returns the next index */
+  private static int encodeUnrolled(final long v, final byte[] dst, final int d) {
+    if ((v + 0x40L) >>> 7 == 0L) {
+      dst[d] = (byte) (0x7FL & v);
+      return d + 1;
+    }
+    if ((v + 0x2000L) >>> 14 == 0L) {
+      dst[d] = (byte) (0x80L | v);
+      dst[d + 1] = (byte) (0x7FL & (v >> 7));
+      return d + 2;
+    }
+    if ((v + 0x100000L) >>> 21 == 0L) {
+      dst[d] = (byte) (0x80L | v);
+      dst[d + 1] = (byte) (0x80L | (v >> 7));
+      dst[d + 2] = (byte) (0x7FL & (v >> 14));
+      return d + 3;
+    }
+    return encodeBytes(v, sizeof(v), dst, d);
+  }
+
+  /*
+   * Writes the encoding of the given size without checking the bounds and returns the index after
+   * it. The bytes are written straight from the size, without testing for the end after every
+   * 7-bit group.
+   */
+  private static int encodeBytes(
+      final long value, final int size, final byte[] destination, final int offset) {
+    final int end = offset + size - 1;
+    destination[end] = (byte) (0x7FL & (value >> (7 * (size - 1))));
+    switch (size) {
+      case 10:
+        destination[offset + 8] = (byte) (0x80L | (value >> 56));
+        // fall through
+      case 9:
+        destination[offset + 7] = (byte) (0x80L | (value >> 49));
+        // fall through
+      case 8:
+        destination[offset + 6] = (byte) (0x80L | (value >> 42));
+        // fall through
+      case 7:
+        destination[offset + 5] = (byte) (0x80L | (value >> 35));
+        // fall through
+      case 6:
+        destination[offset + 4] = (byte) (0x80L | (value >> 28));
+        // fall through
+      case 5:
+        destination[offset + 3] = (byte) (0x80L | (value >> 21));
+        // fall through
+      case 4:
+        destination[offset + 2] = (byte) (0x80L | (value >> 14));
+        // fall through
+      case 3:
+        destination[offset + 1] = (byte) (0x80L | (value >> 7));
+        // fall through
+      case 2:
+        destination[offset] = (byte) (0x80L | value);
+        // fall through
+      default:
+        return end + 1;
     }
-    return index - offset;
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with signed LEB128 and writes the encoding result
+   * to the {@code destination} byte buffer at its position, which is advanced by the count of bytes
+   * written. Heap and direct buffers are both supported.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte buffer where the encoding result is written to
+   * @return An integer that indicates how many bytes have been written
+   * @exception IllegalArgumentException If the {@code destination} has not enough remaining space,
+   *     in which case it is not modified
+   * @since 1.3
+   */
+  public static int encode(final long value, final ByteBuffer destination) {
+    if ((value + 0x40L) >>> 7 == 0L && destination.hasRemaining()) {
+      destination.put((byte) (0x7FL & value));
+      return 1;
+    }
+    final int size = sizeof(value);
+    final int position = destination.position();
+    if (size > destination.remaining()) {
+      throw new IllegalArgumentException(
+          "The encoding needs "
+              + size
+              + " bytes but only "
+              + destination.remaining()
+              + " remain in the destination buffer");
+    }
+    if (destination.hasArray()) {
+      encodeBytes(value, size, destination.array(), destination.arrayOffset() + position);
+    } else {
+      long x = value;
+      for (int i = 1; i < size; i++) {
+        destination.put(position + i - 1, (byte) (0x80L | (0x7FL & x)));
+        x >>= 7;
+      }
+      destination.put(position + size - 1, (byte) (0x7FL & x));
+    }
+    ((Buffer) destination).position(position + size);
+    return size;
   }
 
   /**
    * Calculates how many bytes will return when encoding the specified {@code value} argument with
    * signed LEB128 algorithm.
    *
+   * <p>The size only depends on the count of significant bits of {@code value ^ (value >> 63)},
+   * which is {@code value} with its redundant sign bits cleared, so it is looked up in a table by
+   * {@link Long#numberOfLeadingZeros(long)} of that without any branch.
+   *
    * @param value The {@code value} argument to be encoded
    * @return The result byte count
    * @since 1.2
    */
   public static int sizeof(long value) {
-    if (value >= 0) {
-      /* TODO: Google code format warning: 'if' expression need braces */
-      if (value < 0x40L) return 1;
-      else if (value < 0x2000L) return 2;
-      else if (value < 0x100000L) return 3;
-      else if (value < 0x08000000L) return 4;
-      else if (value < 0x0400000000L) return 5;
-      else if (value < 0x020000000000L) return 6;
-      else if (value < 0x01000000000000L) return 7;
-      else if (value < 0x80000000000000L) return 8;
-      else if (value < 0x4000000000000000L) return 9;
-      else return 10;
-    } else {
-      if (value >= -0x40L) return 1;
-      else if (value >= -0x2000L) return 2;
-      else if (value >= -0x100000L) return 3;
-      else if (value >= -0x08000000L) return 4;
-      else if (value >= -0x0400000000L) return 5;
-      else if (value >= -0x020000000000L) return 6;
-      else if (value >= -0x01000000000000L) return 7;
-      else if (value >= -0x80000000000000L) return 8;
-      else if (value >= -0x4000000000000000L) return 9;
-      else return 10;
-    }
+    return SIZES[Long.numberOfLeadingZeros(value ^ (value >> 63))];
   }
 
   /**
@@ -206,6 +342,7 @@ public final class VarLengthInt64 {
    * @return A 64-bit signed integer
    * @exception IllegalArgumentException If the {@code offset} of the {@code source} can't be read
    *     or be decoded
+   * @see VarIntCursor#readInt64() for decoding a sequence of values without exceptions
    * @since 1.2
    */
   public static long decode(byte[] source, int offset) {
@@ -258,14 +395,184 @@ public final class VarLengthInt64 {
     return result;
   }
 
+  /**
+   * Decodes {@code n} signed LEB128 values that follow one another in the {@code src} byte array
+   * from {@code off} into {@code dst} from {@code dstOff}. The result is the same as decoding the
+   * values one by one, but the arguments are checked once per batch and encodings of up to 3 bytes
+   * are read without a loop.
+   *
+   * @param src The byte array of the encoded values
+   * @param off Starting position in the {@code src} byte array
+   * @param dst The array where the decoded values are written to
+   * @param dstOff Index in {@code dst} where the first value is written to
+   * @param n Count of values to be decoded
+   * @return An integer that indicates how many bytes have been read
+   * @exception IllegalArgumentException If a range is outside the bounds of its array or the
+   *     {@code src} does not hold {@code n} well formed LEB128 values, in which case the values of
+   *     {@code dst} from {@code dstOff} are unspecified
+   * @since 1.3
+   */
+  public static int decodeAll(
+      final byte[] src, final int off, final long[] dst, final int dstOff, final int n) {
+    if (dstOff < 0 || n < 0 || dstOff > dst.length - n) {
+      throw new IllegalArgumentException("The range of values is outside the bounds of dst");
+    }
+    if (off < 0 || off > src.length) {
+      throw new IllegalArgumentException("The off argument is outside the bounds of src");
+    }
+    final int end = dstOff + n;
+    final int safe = src.length - 3;
+    /* Longer encodings and the last bytes of src go through a cursor, which returns the size */
+    VarIntCursor cursor = null;
+    int s = off;
+    for (int i = dstOff; i < end; i++) {
+      if (s <= safe) {
+        final int b0 = src[s];
+        if (b0 >= 0) {
+          dst[i] = (long) b0 << 57 >> 57;
+          s += 1;
+          continue;
+        }
+        final int b1 = src[s + 1];
+        if (b1 >= 0) {
+          dst[i] = ((0x7FL & b0) | (long) b1 << 7) << 50 >> 50;
+          s += 2;
+          continue;
+        }
+        final int b2 = src[s + 2];
+        if (b2 >= 0) {
+          dst[i] = ((0x7FL & b0) | (0x7FL & b1) << 7 | (long) b2 << 14) << 43 >> 43;
+          s += 3;
+          continue;
+        }
+      }
+      if (cursor == null) {
+        cursor = new VarIntCursor(src, off, src.length - off);
+      }
+      final int size = cursor.position(s).readInt64();
+      if (size <= 0) {
+        throw new IllegalArgumentException(
+            (size == VarIntCursor.MALFORMED ? "The result overflows" : "No ending byte")
+                + " at offset position "
+                + s
+                + " of the source which is not a well formed LEB128");
+      }
+      dst[i] = cursor.value();
+      s += size;
+    }
+    return s - off;
+  }
+
+  /**
+   * Decodes a 64-bit signed integer from the {@code source} byte buffer at its position, which is
+   * advanced past the decoded bytes. Heap and direct buffers are both supported.
+   *
+   * <p>When at least 8 bytes remain, they are read with a single {@link ByteBuffer#getLong(int)}
+   * and an encoding of up to 8 bytes is decoded without a loop: the terminating byte is the lowest
+   * one with a clear high bit, and the 7-bit groups are packed together with three mask and shift
+   * steps. Longer encodings and the last few bytes of a buffer are read one byte at a time.
+   *
+   * @param source The {@code source} byte buffer
+   * @return A 64-bit signed integer
+   * @exception IllegalArgumentException If the bytes at the position of the {@code source} can't
+   *     be read or be decoded, in which case the position is not changed
+   * @since 1.3
+   */
+  public static long decode(final ByteBuffer source) {
+    final int position = source.position();
+    if (source.remaining() >= 8) {
+      final long word = source.getLong(position);
+      final long bits = source.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+      final long ends = ~bits & CONTINUATION_BITS;
+      if (ends != 0L) {
+        final int size = (Long.numberOfTrailingZeros(ends) >>> 3) + 1;
+        ((Buffer) source).position(position + size);
+        return signExtend(pack(bits & (ends ^ (ends - 1L))), 7 * size);
+      }
+    }
+    final int limit = source.limit();
+    int index = position;
+    int shift = 0;
+    int current = 0;
+    long result = 0L;
+    boolean more = true;
+    while (more) {
+      if (index >= limit || index - position >= ENCODED_BYTE_MAX) {
+        break;
+      }
+      current = source.get(index);
+      more = current < 0; /* 0x80 == (0x80 & current) */
+      index++;
+      if (-0x80 != current) {
+        result |= (((long) (0x7F & current)) << shift);
+      }
+      shift += 7;
+      if (shift > BIT_COUNT && result == 0) {
+        throw new IllegalArgumentException(
+            "The result overflows after reading "
+                + (index - position)
+                + " bytes which means position "
+                + position
+                + " of the source buffer is not a well formed LEB128");
+      }
+    }
+    if (index == position) {
+      throw new IllegalArgumentException(
+          "No byte available at position " + position + " of the source buffer");
+    }
+    if (more) {
+      throw new IllegalArgumentException(
+          "No ending byte after reading "
+              + (index - position)
+              + " bytes which means position "
+              + position
+              + " of the source buffer is not a well formed LEB128");
+    }
+    if (shift < BIT_COUNT && 0 != (0x40 & current)) {
+      result |= (-1L << shift);
+    }
+    ((Buffer) source).position(index);
+    return result;
+  }
+
+  /* Packs the low 7 bits of every byte of a little endian word into the low 56 bits */
+  static long pack(final long bytes) {
+    long x = bytes & 0x7F7F7F7F7F7F7F7FL;
+    x = (x & 0x007F007F007F007FL) | ((x & 0x7F007F007F007F00L) >>> 1);
+    x = (x & 0x00003FFF00003FFFL) | ((x & 0x3FFF00003FFF0000L) >>> 2);
+    return (x & 0x000000000FFFFFFFL) | ((x & 0x0FFFFFFF00000000L) >>> 4);
+  }
+
+  private static long signExtend(final long value, final int bits) {
+    return value << (BIT_COUNT - bits) >> (BIT_COUNT - bits);
+  }
+
   /**
    * Decodes a 64-bit signed integer from the {@code source} byte stream argument.
    *
+   * <p>If the class of the source overrides {@link StreamReader#peek(byte[], int, int)} and the
+   * peeked bytes hold the whole encoding, it is decoded from them and consumed with one bulk read.
+   * Otherwise the bytes are read one at a time.
+   *
    * @param source The {@code source} byte stream
    * @return A 64-bit signed integer
    * @since 1.2
    */
   public static long decode(StreamReader source) throws IOException {
+    if (Streams.peeks(source)) {
+      final byte[] window = Streams.claim();
+      final int peeked = source.peek(window, 0, ENCODED_BYTE_MAX - 1);
+      for (int i = 0; i < peeked; i++) {
+        if (window[i] >= 0) {
+          /* Up to 9 bytes never overflow, so the window decodes without errors */
+          final long result = decode(window, 0);
+          Streams.consume(source, window, i + 1);
+          Streams.release(window);
+          return result;
+        }
+      }
+      Streams.release(window);
+    }
     int index = 0;
     int shift = 0;
     int current = 0;
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This class implements a method of variable length 64-bit unsigned integer encoding and
+ * corresponding decoding.
+ *
+ * <p>The encoding format is unsigned LEB128, which is the same as the {@code uint64} varint of <a
+ * href="https://developers.google.com/protocol-buffers/docs/encoding#varints">Protocol
+ * Buffers</a>. Compared with the signed LEB128 of {@link VarLengthInt64}, no bit is spent on the
+ * sign, so non-negative values from 64 to 127 take one byte instead of two, and so on at every
+ * 7-bit boundary. Negative {@code long} values are treated as unsigned and always take 10 bytes;
+ * use {@link ZigZagInt64} for values that may be small negatives.
+ *
+ * @author Kang Wang
+ * @since 1.3
+ */
+public final class VarLengthUInt64 {
+
+  private static final int ENCODED_BYTE_MAX = 10;
+
+  private VarLengthUInt64() {}
+
+  /**
+   * Encodes the specified {@code value} argument with unsigned LEB128 and writes the encoding
+   * result to the {@code destination} byte stream argument, with one bulk call if the class of the
+   * destination overrides {@link StreamWriter#write(byte[], int, int)}.
+   *
+   * @param value The {@code value} argument to be encoded, as an unsigned integer
+   * @param destination The {@code destination} byte stream argument where the encoding result is
+   *     written to
+   * @return An integer that indicates how many bytes have been written
+   * @throws java.io.IOException If an I/O error occurs
+   * @since 1.3
+   */
+  public static int encode(final long value, final StreamWriter destination) throws IOException {
+    if (!Streams.writesBulk(destination)) {
+      long x = value;
+      int count = 1;
+      while ((x & ~0x7FL) != 0L) {
+        destination.write((int) (0x80L | (0x7FL & x)));
+        x >>>= 7;
+        count++;
+      }
+      destination.write((int) x);
+      return count;
+    }
+    final byte[] buffer = Streams.claim();
+    final int count = encodeBytes(value, buffer, 0);
+    destination.write(buffer, 0, count);
+    Streams.release(buffer);
+    return count;
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with unsigned LEB128 and writes the encoding
+   * result to the {@code destination} byte array.
+   *
+   * @param value The {@code value} argument to be encoded, as an unsigned integer
+   * @param destination The {@code destination} byte array argument where the encoding result is
+   *     written to
+   * @return An integer that indicates how many bytes have been written
+   * @since 1.3
+   */
+  public static int encode(final long value, final byte[] destination) {
+    return encode(value, destination, 0);
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with unsigned LEB128 and writes the encoding
+   * result to the {@code destination} byte array.
+   *
+   * @param value The {@code value} argument to be encoded, as an unsigned integer
+   * @param destination The {@code destination} byte array argument where the encoding result is
+   *     written to
+   * @param offset Starting position in the {@code destination} byte array
+   * @return An integer that indicates how many bytes have been written
+   * @exception NullPointerException If the {@code destination} argument is null
+   * @exception IllegalArgumentException If the {@code offset} argument is negative or the encoding
+   *     from {@code offset} is outside the bounds of the {@code destination} array
+   * @since 1.3
+   */
+  public static int encode(final long value, final byte[] destination, final int offset) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("The offset argument is negative");
+    }
+    if (offset > destination.length - sizeof(value)) {
+      throw new IllegalArgumentException(
+          "The result of offset + size is outside the bounds of the bytes array");
+    }
+    return encodeBytes(value, destination, offset) - offset;
+  }
+
+  /* Writes the encoding without checking the bounds and returns the index after it */
+  private static int encodeBytes(final long value, final byte[] destination, final int offset) {
+    long x = value;
+    int index = offset;
+    while ((x & ~0x7FL) != 0L) {
+      destination[index++] = (byte) (0x80L | x);
+      x >>>= 7;
+    }
+    destination[index++] = (byte) x;
+    return index;
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with unsigned LEB128 and writes the encoding
+   * result to the {@code destination} byte buffer at its position, which is advanced by the count
+   * of bytes written. Heap and direct buffers are both supported.
+   *
+   * @param value The {@code value} argument to be encoded, as an unsigned integer
+   * @param destination The {@code destination} byte buffer where the encoding result is written to
+   * @return An integer that indicates how many bytes have been written
+   * @exception IllegalArgumentException If the {@code destination} has not enough remaining space,
+   *     in which case it is not modified
+   * @since 1.3
+   */
+  public static int encode(final long value, final ByteBuffer destination) {
+    final int size = sizeof(value);
+    final int position = destination.position();
+    if (size > destination.remaining()) {
+      throw new IllegalArgumentException(
+          "The encoding needs "
+              + size
+              + " bytes but only "
+              + destination.remaining()
+              + " remain in the destination buffer");
+    }
+    if (destination.hasArray()) {
+      encodeBytes(value, destination.array(), destination.arrayOffset() + position);
+    } else {
+      long x = value;
+      for (int i = 1; i < size; i++) {
+        destination.put(position + i - 1, (byte) (0x80L | x));
+        x >>>= 7;
+      }
+      destination.put(position + size - 1, (byte) x);
+    }
+    ((Buffer) destination).position(position + size);
+    return size;
+  }
+
+  /**
+   * Calculates how many bytes will return when encoding the specified {@code value} argument with
+   * unsigned LEB128 algorithm.
+   *
+   * @param value The {@code value} argument to be encoded, as an unsigned integer
+   * @return The result byte count, from 1 to 10
+   * @since 1.3
+   */
+  public static int sizeof(final long value) {
+    /* Count of significant bits, at least 1, rounded up to 7-bit groups */
+    return (70 - Long.numberOfLeadingZeros(value | 1L)) / 7;
+  }
+
+  /**
+   * Decodes a 64-bit unsigned integer from the {@code source} byte array argument.
+   *
+   * @param source The {@code source} byte array
+   * @return A 64-bit integer, where values above {@link Long#MAX_VALUE} are negative
+   * @since 1.3
+   */
+  public static long decode(final byte[] source) {
+    return decode(source, 0);
+  }
+
+  /**
+   * Decodes a 64-bit unsigned integer from the {@code source} byte array argument.
+   *
+   * @param source The {@code source} byte array
+   * @param offset Starting position in the {@code source} byte array
+   * @return A 64-bit integer, where values above {@link Long#MAX_VALUE} are negative
+   * @exception IllegalArgumentException If the {@code offset} of the {@code source} can't be read
+   *     or be decoded
+   * @since 1.3
+   */
+  public static long decode(final byte[] source, final int offset) {
+    if (null == source || offset < 0 || offset >= source.length) {
+      throw new IllegalArgumentException(
+          "No byte available at offset position " + offset + " of the source byte array");
+    }
+    final int max = Math.min(source.length - offset, ENCODED_BYTE_MAX);
+    long result = 0L;
+    for (int i = 0; i < max; i++) {
+      final int current = source[offset + i];
+      if (current >= 0) {
+        checkLast(i, current, "offset position " + offset + " of the source");
+        return result | (long) current << (7 * i);
+      }
+      result |= (0x7FL & current) << (7 * i);
+    }
+    throw new IllegalArgumentException(
+        "No ending byte after reading "
+            + max
+            + " bytes which means offset position "
+            + offset
+            + " of the source is not a well formed LEB128");
+  }
+
+  /**
+   * Decodes a 64-bit unsigned integer from the {@code source} byte buffer at its position, which is
+   * advanced past the decoded bytes. Heap and direct buffers are both supported.
+   *
+   * <p>When at least 8 bytes remain, an encoding of up to 8 bytes is decoded from a single {@link
+   * ByteBuffer#getLong(int)} without a loop, as {@link VarLengthInt64#decode(ByteBuffer)} does but
+   * without the sign extension.
+   *
+   * @param source The {@code source} byte buffer
+   * @return A 64-bit integer, where values above {@link Long#MAX_VALUE} are negative
+   * @exception IllegalArgumentException If the bytes at the position of the {@code source} can't
+   *     be read or be decoded, in which case the position is not changed
+   * @since 1.3
+   */
+  public static long decode(final ByteBuffer source) {
+    final int position = source.position();
+    if (source.remaining() >= 8) {
+      final long word = source.getLong(position);
+      final long bits = source.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+      final long ends = ~bits & VarLengthInt64.CONTINUATION_BITS;
+      if (ends != 0L) {
+        ((Buffer) source).position(position + (Long.numberOfTrailingZeros(ends) >>> 3) + 1);
+        return VarLengthInt64.pack(bits & (ends ^ (ends - 1L)));
+      }
+    }
+    final int max = Math.min(source.remaining(), ENCODED_BYTE_MAX);
+    if (max == 0) {
+      throw new IllegalArgumentException(
+          "No byte available at position " + position + " of the source buffer");
+    }
+    long result = 0L;
+    for (int i = 0; i < max; i++) {
+      final int current = source.get(position + i);
+      if (current >= 0) {
+        checkLast(i, current, "position " + position + " of the source buffer");
+        ((Buffer) source).position(position + i + 1);
+        return result | (long) current << (7 * i);
+      }
+      result |= (0x7FL & current) << (7 * i);
+    }
+    throw new IllegalArgumentException(
+        "No ending byte after reading "
+            + max
+            + " bytes which means position "
+            + position
+            + " of the source buffer is not a well formed LEB128");
+  }
+
+  /**
+   * Decodes a 64-bit unsigned integer from the {@code source} byte stream argument.
+   *
+   * <p>If the class of the source overrides {@link StreamReader#peek(byte[], int, int)} and the
+   * peeked bytes hold the whole encoding, it is decoded from them and consumed with one bulk read.
+   * Otherwise the bytes are read one at a time.
+   *
+   * @param source The {@code source} byte stream
+   * @return A 64-bit integer, where values above {@link Long#MAX_VALUE} are negative
+   * @throws java.io.IOException If an I/O error occurs
+   * @exception IllegalArgumentException If the next bytes of the {@code source} can't be decoded
+   * @since 1.3
+   */
+  public static long decode(final StreamReader source) throws IOException {
+    if (Streams.peeks(source)) {
+      final byte[] window = Streams.claim();
+      final int peeked = source.peek(window, 0, ENCODED_BYTE_MAX);
+      for (int i = 0; i < peeked; i++) {
+        if (window[i] >= 0) {
+          final long result = decode(window, 0);
+          Streams.consume(source, window, i + 1);
+          Streams.release(window);
+          return result;
+        }
+      }
+      Streams.release(window);
+    }
+    long result = 0L;
+    for (int i = 0; i < ENCODED_BYTE_MAX; i++) {
+      final int current = source.read();
+      if (-1 == current) {
+        if (i == 0) {
+          throw new IllegalArgumentException("Reaches the end of the source byte steam");
+        }
+        throw new IllegalArgumentException(
+            "No ending byte after reading "
+                + i
+                + " bytes which means the source byte stream is not a well formed LEB128");
+      }
+      if (current < 0x80) {
+        checkLast(i, current, "the source byte stream");
+        return result | (long) current << (7 * i);
+      }
+      result |= (0x7FL & current) << (7 * i);
+    }
+    throw new IllegalArgumentException(
+        "No ending byte after reading "
+            + ENCODED_BYTE_MAX
+            + " bytes which means the source byte stream is not a well formed LEB128");
+  }
+
+  /* The 10th byte holds the top bit only, anything more overflows 64 bits */
+  private static void checkLast(final int index, final int current, final String where) {
+    if (index == ENCODED_BYTE_MAX - 1 && current > 1) {
+      throw new IllegalArgumentException(
+          "The result overflows after reading "
+              + ENCODED_BYTE_MAX
+              + " bytes which means "
+              + where
+              + " is not a well formed LEB128");
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class implements a method of variable length 64-bit signed integer encoding and
+ * corresponding decoding, which maps signed values to unsigned ones with ZigZag encoding and
+ * encodes them with the unsigned LEB128 of {@link VarLengthUInt64}.
+ *
+ * <p>ZigZag encoding maps 0, -1, 1, -2, 2 ... to 0, 1, 2, 3, 4 ..., so values of small magnitude
+ * take few bytes whatever their sign. The format is the same as the {@code sint64} varint of <a
+ * href="https://developers.google.com/protocol-buffers/docs/encoding#signed-ints">Protocol
+ * Buffers</a>.
+ *
+ * @author Kang Wang
+ * @since 1.3
+ */
+public final class ZigZagInt64 {
+
+  private ZigZagInt64() {}
+
+  /**
+   * Maps a signed value to the unsigned value of ZigZag encoding.
+   *
+   * @param value A 64-bit signed integer
+   * @return The ZigZag encoded value, as an unsigned integer
+   * @since 1.3
+   */
+  public static long zigzag(final long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  /**
+   * Maps the unsigned value of ZigZag encoding back to the signed value.
+   *
+   * @param value The ZigZag encoded value, as an unsigned integer
+   * @return A 64-bit signed integer
+   * @since 1.3
+   */
+  public static long unzigzag(final long value) {
+    return (value >>> 1) ^ -(value & 1L);
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with ZigZag LEB128 and writes the encoding result
+   * to the {@code destination} byte stream argument.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte stream argument where the encoding result is
+   *     written to
+   * @return An integer that indicates how many bytes have been written
+   * @throws java.io.IOException If an I/O error occurs
+   * @see VarLengthUInt64#encode(long, StreamWriter)
+   * @since 1.3
+   */
+  public static int encode(final long value, final StreamWriter destination) throws IOException {
+    return VarLengthUInt64.encode(zigzag(value), destination);
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with ZigZag LEB128 and writes the encoding result
+   * to the {@code destination} byte array.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte array argument where the encoding result is
+   *     written to
+   * @return An integer that indicates how many bytes have been written
+   * @see VarLengthUInt64#encode(long, byte[])
+   * @since 1.3
+   */
+  public static int encode(final long value, final byte[] destination) {
+    return VarLengthUInt64.encode(zigzag(value), destination, 0);
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with ZigZag LEB128 and writes the encoding result
+   * to the {@code destination} byte array.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte array argument where the encoding result is
+   *     written to
+   * @param offset Starting position in the {@code destination} byte array
+   * @return An integer that indicates how many bytes have been written
+   * @see VarLengthUInt64#encode(long, byte[], int)
+   * @since 1.3
+   */
+  public static int encode(final long value, final byte[] destination, final int offset) {
+    return VarLengthUInt64.encode(zigzag(value), destination, offset);
+  }
+
+  /**
+   * Encodes the specified {@code value} argument with ZigZag LEB128 and writes the encoding result
+   * to the {@code destination} byte buffer at its position, which is advanced by the count of bytes
+   * written.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @param destination The {@code destination} byte buffer where the encoding result is written to
+   * @return An integer that indicates how many bytes have been written
+   * @see VarLengthUInt64#encode(long, ByteBuffer)
+   * @since 1.3
+   */
+  public static int encode(final long value, final ByteBuffer destination) {
+    return VarLengthUInt64.encode(zigzag(value), destination);
+  }
+
+  /**
+   * Calculates how many bytes will return when encoding the specified {@code value} argument with
+   * ZigZag LEB128 algorithm.
+   *
+   * @param value The {@code value} argument to be encoded
+   * @return The result byte count, from 1 to 10
+   * @since 1.3
+   */
+  public static int sizeof(final long value) {
+    return VarLengthUInt64.sizeof(zigzag(value));
+  }
+
+  /**
+   * Decodes a 64-bit signed integer from the {@code source} byte array argument.
+   *
+   * @param source The {@code source} byte array
+   * @return A 64-bit signed integer
+   * @see VarLengthUInt64#decode(byte[])
+   * @since 1.3
+   */
+  public static long decode(final byte[] source) {
+    return unzigzag(VarLengthUInt64.decode(source, 0));
+  }
+
+  /**
+   * Decodes a 64-bit signed integer from the {@code source} byte array argument.
+   *
+   * @param source The {@code source} byte array
+   * @param offset Starting position in the {@code source} byte array
+   * @return A 64-bit signed integer
+   * @see VarLengthUInt64#decode(byte[], int)
+   * @since 1.3
+   */
+  public static long decode(final byte[] source, final int offset) {
+    return unzigzag(VarLengthUInt64.decode(source, offset));
+  }
+
+  /**
+   * Decodes a 64-bit signed integer from the {@code source} byte buffer at its position, which is
+   * advanced past the decoded bytes.
+   *
+   * @param source The {@code source} byte buffer
+   * @return A 64-bit signed integer
+   * @see VarLengthUInt64#decode(ByteBuffer)
+   * @since 1.3
+   */
+  public static long decode(final ByteBuffer source) {
+    return unzigzag(VarLengthUInt64.decode(source));
+  }
+
+  /**
+   * Decodes a 64-bit signed integer from the {@code source} byte stream argument.
+   *
+   * @param source The {@code source} byte stream
+   * @return A 64-bit signed integer
+   * @throws java.io.IOException If an I/O error occurs
+   * @see VarLengthUInt64#decode(StreamReader)
+   * @since 1.3
+   */
+  public static long decode(final StreamReader source) throws IOException {
+    return unzigzag(VarLengthUInt64.decode(source));
+  }
+}
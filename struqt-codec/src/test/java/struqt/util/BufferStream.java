@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import java.util.Arrays;
+
+/* Byte buffer with bulk and peek support, which counts the calls that move a single byte */
+class BufferStream implements StreamReader, StreamWriter {
+
+  private final int peekLimit;
+  private byte[] bytes = new byte[16];
+  int length;
+  private int position;
+  int singleReads;
+  int singleWrites;
+
+  BufferStream(int peekLimit) {
+    this.peekLimit = peekLimit;
+  }
+
+  @Override
+  public int read() {
+    singleReads++;
+    return position < length ? 0xFF & bytes[position++] : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    int n = Math.min(len, length - position);
+    if (n <= 0) {
+      return len == 0 ? 0 : -1;
+    }
+    System.arraycopy(bytes, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int peek(byte[] b, int off, int len) {
+    int n = Math.min(Math.min(len, peekLimit), length - position);
+    System.arraycopy(bytes, position, b, off, n);
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return length - position;
+  }
+
+  @Override
+  public void write(int b) {
+    singleWrites++;
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    if (length + len > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + len));
+    }
+    System.arraycopy(b, off, bytes, length, len);
+    length += len;
+  }
+}
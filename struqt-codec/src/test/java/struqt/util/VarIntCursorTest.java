@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static struqt.util.VarIntCursor.END;
+import static struqt.util.VarIntCursor.MALFORMED;
+import static struqt.util.VarIntCursor.TRUNCATED;
+
+class VarIntCursorTest {
+
+  private static final Random random = new SecureRandom();
+
+  @Test
+  protected void signedSequence() {
+    sequence(true);
+  }
+
+  @Test
+  protected void unsignedSequence() {
+    sequence(false);
+  }
+
+  private static void sequence(boolean signed) {
+    long[] values = new long[1000];
+    byte[] bytes = new byte[values.length * 10 + 3];
+    int length = 3;
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextLong() >> random.nextInt(64);
+      length +=
+          signed
+              ? VarLengthInt64.encode(values[i], bytes, length)
+              : VarLengthUInt64.encode(values[i], bytes, length);
+    }
+    ByteBuffer direct = ByteBuffer.allocateDirect(length + 5);
+    direct.position(5);
+    direct.put(bytes, 3, length - 3).flip().position(5);
+    VarIntCursor[] cursors = {
+      new VarIntCursor(bytes, 3, length - 3),
+      new VarIntCursor(ByteBuffer.wrap(bytes, 3, length - 3)),
+      new VarIntCursor(direct),
+      new VarIntCursor(direct.duplicate().order(ByteOrder.LITTLE_ENDIAN))
+    };
+    for (VarIntCursor cursor : cursors) {
+      int position = cursor.position();
+      for (long value : values) {
+        int size = signed ? cursor.readInt64() : cursor.readUInt64();
+        int expected = signed ? VarLengthInt64.sizeof(value) : VarLengthUInt64.sizeof(value);
+        assertEquals(expected, size);
+        assertEquals(value, cursor.value());
+        position += size;
+        assertEquals(position, cursor.position());
+      }
+      assertEquals(0, cursor.remaining());
+      assertEquals(END, signed ? cursor.readInt64() : cursor.readUInt64());
+    }
+    assertEquals(5, direct.position());
+  }
+
+  @Test
+  protected void status() {
+    byte[] bytes = {-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0, 5};
+    for (int length = 1; length < 10; length++) {
+      VarIntCursor cursor = new VarIntCursor(bytes, 0, length);
+      assertEquals(TRUNCATED, cursor.readInt64());
+      assertEquals(TRUNCATED, cursor.readUInt64());
+      assertEquals(0, cursor.position());
+    }
+    VarIntCursor cursor = new VarIntCursor(bytes);
+    assertEquals(MALFORMED, cursor.readInt64());
+    assertEquals(MALFORMED, cursor.readUInt64());
+    assertEquals(0, cursor.position());
+    assertEquals(0L, cursor.value());
+    assertEquals(1, cursor.position(10).readInt64());
+    assertEquals(0L, cursor.value());
+    assertEquals(1, cursor.readUInt64());
+    assertEquals(5L, cursor.value());
+    assertEquals(END, cursor.readUInt64());
+    assertEquals(5L, cursor.value());
+  }
+
+  @Test
+  protected void lastByte() {
+    byte[] bytes = {-128, -128, -128, -128, -128, -128, -128, -128, -128, 0};
+    VarIntCursor cursor = new VarIntCursor(bytes);
+    for (int last : new int[] {0x00, 0x7F, 0x01}) {
+      bytes[9] = (byte) last;
+      assertEquals(last == 0x01 ? MALFORMED : 10, cursor.position(0).readInt64());
+      assertEquals(last == 0x7F ? MALFORMED : 10, cursor.position(0).readUInt64());
+    }
+    bytes[9] = 0x7F;
+    assertEquals(10, cursor.position(0).readInt64());
+    assertEquals(Long.MIN_VALUE, cursor.value());
+    bytes[9] = 0x01;
+    assertEquals(10, cursor.position(0).readUInt64());
+    assertEquals(Long.MIN_VALUE, cursor.value());
+  }
+
+  @Test
+  protected void int32() {
+    int[] values = new int[1000];
+    byte[] bytes = new byte[values.length * 5];
+    int length = 0;
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt() >> random.nextInt(32);
+      length += VarLengthInt32.encode(values[i], bytes, length);
+    }
+    VarIntCursor cursor = new VarIntCursor(bytes, 0, length);
+    for (int value : values) {
+      assertEquals(VarLengthInt32.sizeof(value), cursor.readInt32());
+      assertEquals(value, cursor.value());
+    }
+    assertEquals(END, cursor.readInt32());
+    byte[] overflow = {-128, -128, -128, -128, 8, 0, 0, 0, 0x77};
+    for (int length32 : new int[] {5, overflow.length}) {
+      cursor = new VarIntCursor(overflow, 0, length32);
+      assertEquals(MALFORMED, cursor.readInt32());
+      assertEquals(5, cursor.readInt64());
+      assertEquals(1L << 31, cursor.value());
+    }
+    overflow[4] = -128;
+    for (int length32 = 1; length32 < overflow.length; length32++) {
+      int status = new VarIntCursor(overflow, 0, length32).readInt32();
+      assertEquals(length32 < 5 ? TRUNCATED : MALFORMED, status);
+    }
+    byte[] negative = {-1, -1, -1, -1, 0x77, 0x78};
+    assertEquals(MALFORMED, new VarIntCursor(negative).readInt32());
+    negative[4] = 0x78;
+    assertEquals(5, new VarIntCursor(negative).readInt32());
+  }
+
+  @Test
+  protected void arguments() {
+    assertThrows(IllegalArgumentException.class, () -> new VarIntCursor(new byte[4], 3, 2));
+    assertThrows(IllegalArgumentException.class, () -> new VarIntCursor(new byte[4], -1, 2));
+    VarIntCursor cursor = new VarIntCursor(new byte[8], 2, 4);
+    assertEquals(2, cursor.position());
+    assertEquals(4, cursor.remaining());
+    assertThrows(IllegalArgumentException.class, () -> cursor.position(1));
+    assertThrows(IllegalArgumentException.class, () -> cursor.position(7));
+    assertEquals(0, cursor.position(6).remaining());
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static struqt.util.VarLengthInt32.decode;
+import static struqt.util.VarLengthInt32.encode;
+import static struqt.util.VarLengthInt32.sizeof;
+
+class VarLengthInt32Test {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(
+      ints = {
+        Integer.MAX_VALUE,
+        (1 << 27),
+        (1 << 27) - 1,
+        (1 << 20),
+        (1 << 20) - 1,
+        (1 << 13),
+        (1 << 13) - 1,
+        (1 << 6),
+        (1 << 6) - 1,
+        0xCE,
+        1,
+        0,
+        -1,
+        (-1 << 6),
+        (-1 << 6) - 1,
+        (-1 << 13),
+        (-1 << 13) - 1,
+        (-1 << 20),
+        (-1 << 20) - 1,
+        (-1 << 27),
+        (-1 << 27) - 1,
+        Integer.MIN_VALUE,
+      })
+  protected void thresholds(int value) throws IOException {
+    int size = sizeof(value);
+    /* Same format and size as the 64-bit codec */
+    assertEquals(VarLengthInt64.sizeof(value), size);
+    byte[] expected = new byte[size];
+    VarLengthInt64.encode(value, expected);
+    String expect = Arrays.toString(expected);
+    roundTrip(value, size, expect);
+  }
+
+  @Test
+  protected void randomValues() throws IOException {
+    for (int i = 0; i < 1000; i++) {
+      int value = random.nextInt() >> random.nextInt(32);
+      byte[] bytes = new byte[sizeof(value)];
+      assertEquals(bytes.length, encode(value, bytes));
+      assertEquals(value, VarLengthInt64.decode(bytes));
+      roundTrip(value, bytes.length, Arrays.toString(bytes));
+    }
+  }
+
+  @Test
+  protected void bulkStream() throws IOException {
+    for (int peekLimit : new int[] {0, 2, 5}) {
+      BufferStream stream = new BufferStream(peekLimit);
+      int[] values = new int[200];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = random.nextInt() >> random.nextInt(32);
+        assertEquals(sizeof(values[i]), encode(values[i], stream));
+      }
+      assertEquals(0, stream.singleWrites);
+      for (int value : values) {
+        assertEquals(value, decode(stream));
+      }
+      assertEquals(0, stream.available());
+      if (peekLimit == 5) {
+        assertEquals(0, stream.singleReads);
+      }
+    }
+  }
+
+  @Test
+  protected void decodeException() {
+    assertThrows(IllegalArgumentException.class, () -> decode(null, 0));
+    assertThrows(IllegalArgumentException.class, () -> decode(new byte[0]));
+    assertThrows(IllegalArgumentException.class, () -> decode(new byte[] {-128}));
+    assertThrows(IllegalArgumentException.class, () -> decode(new byte[] {0}, 1));
+    /* 2^31 and -2^31 - 1 overflow, and so does any encoding longer than 5 bytes */
+    byte[] positive = {-128, -128, -128, -128, 8};
+    byte[] negative = {-1, -1, -1, -1, 0x77};
+    byte[] endless = {-128, -128, -128, -128, -128, 0};
+    for (byte[] source : new byte[][] {positive, negative, endless}) {
+      assertThrows(IllegalArgumentException.class, () -> decode(source));
+      ByteBuffer buffer = ByteBuffer.wrap(source);
+      assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+      assertEquals(0, buffer.position());
+      assertThrows(
+          IllegalArgumentException.class, () -> decode(new ByteArrayInputStream(source)::read));
+    }
+    assertThrows(IllegalArgumentException.class, () -> decode(ByteBuffer.allocate(0)));
+    assertThrows(
+        IllegalArgumentException.class, () -> decode(new ByteArrayInputStream(new byte[0])::read));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> decode(new ByteArrayInputStream(new byte[] {-128})::read));
+  }
+
+  @Test
+  protected void encodeException() {
+    assertThrows(NullPointerException.class, () -> encode(1, (byte[]) null));
+    assertThrows(IllegalArgumentException.class, () -> encode(1, new byte[1], -1));
+    assertThrows(IllegalArgumentException.class, () -> encode(1, new byte[1], 1));
+    assertThrows(IllegalArgumentException.class, () -> encode(64, new byte[1]));
+    ByteBuffer buffer = ByteBuffer.allocateDirect(4);
+    assertThrows(IllegalArgumentException.class, () -> encode(Integer.MIN_VALUE, buffer));
+    assertEquals(0, buffer.position());
+  }
+
+  private static void roundTrip(int value, int size, String expect) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(size, encode(value, out::write));
+    byte[] bytes = out.toByteArray();
+    assertEquals(expect, Arrays.toString(bytes));
+    byte[] shifted = new byte[size + 1];
+    assertEquals(size, encode(value, shifted, 1));
+    assertEquals(value, decode(bytes));
+    assertEquals(value, decode(shifted, 1));
+    assertEquals(value, decode(new ByteArrayInputStream(bytes)::read));
+    ByteBuffer[] buffers = {
+      ByteBuffer.allocate(size), ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN)
+    };
+    for (ByteBuffer buffer : buffers) {
+      assertEquals(size, encode(value, buffer));
+      buffer.flip();
+      assertEquals(value, decode(buffer));
+      assertEquals(size, buffer.position());
+      byte[] written = new byte[size];
+      buffer.position(0);
+      buffer.get(written);
+      assertEquals(expect, Arrays.toString(written));
+    }
+  }
+}
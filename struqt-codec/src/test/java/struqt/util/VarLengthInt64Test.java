@@ -14,14 +14,20 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static struqt.util.VarLengthInt64.decode;
+import static struqt.util.VarLengthInt64.decodeAll;
 import static struqt.util.VarLengthInt64.encode;
+import static struqt.util.VarLengthInt64.encodeAll;
 
 @Slf4j
 class VarLengthInt64Test {
@@ -88,9 +94,123 @@ class VarLengthInt64Test {
     assertEquals(expect, Arrays.toString(encoded));
     assertEquals(value, decode(bytes));
     assertEquals(value, decode(new ByteArrayInputStream(bytes)::read));
+    for (ByteBuffer buffer : buffers(size + 8)) {
+      /* Exact room goes through the byte loop, extra room through the word decoder */
+      for (int room : new int[] {size, size + 8}) {
+        buffer.clear().limit(room);
+        assertEquals(size, encode(value, buffer));
+        assertEquals(size, buffer.position());
+        buffer.flip().limit(room);
+        assertEquals(value, decode(buffer));
+        assertEquals(size, buffer.position());
+        byte[] written = new byte[size];
+        buffer.position(0);
+        buffer.get(written);
+        assertEquals(expect, Arrays.toString(written));
+      }
+    }
     log.trace("| {} | {} {}", size, value, expect);
   }
 
+  @Test
+  protected void bufferSequence() {
+    long[] values = new long[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextLong() >> random.nextInt(64);
+    }
+    for (ByteBuffer buffer : buffers(values.length * 10)) {
+      buffer.position(3);
+      for (long value : values) {
+        encode(value, buffer);
+      }
+      buffer.flip().position(3);
+      for (long value : values) {
+        assertEquals(value, decode(buffer));
+      }
+      assertEquals(0, buffer.remaining());
+    }
+  }
+
+  @Test
+  protected void bufferException() {
+    final byte[] source =
+        new byte[] {0, -128, -128, -128, -128, -128, -128, -128, -128, -128, -128, 64};
+    for (ByteBuffer buffer : buffers(source.length)) {
+      buffer.put(source).flip();
+      assertEquals(0, decode(buffer));
+      assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+      assertEquals(1, buffer.position());
+      buffer.position(2);
+      assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+      assertEquals(2, buffer.position());
+      buffer.position(3);
+      assertEquals(-1L << 62, decode(buffer));
+      buffer.position(8);
+      assertEquals(-1L << 27, decode(buffer));
+      assertEquals(12, buffer.position());
+      assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+      buffer.clear().limit(2);
+      assertThrows(IllegalArgumentException.class, () -> encode(Long.MIN_VALUE, buffer));
+      assertEquals(0, buffer.position());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 7, 100, 1000})
+  protected void batch(int n) {
+    long[] values = new long[n + 2];
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    for (int i = 1; i <= n; i++) {
+      values[i] = random.nextLong() >> random.nextInt(64);
+      byte[] one = new byte[VarLengthInt64.sizeof(values[i])];
+      encode(values[i], one);
+      expected.write(one, 0, one.length);
+    }
+    byte[] exact = new byte[expected.size() + 1];
+    assertEquals(expected.size(), encodeAll(values, 1, n, exact, 1));
+    assertEquals(
+        Arrays.toString(expected.toByteArray()),
+        Arrays.toString(Arrays.copyOfRange(exact, 1, exact.length)));
+    /* Room for the longest encodings takes the loop that checks nothing per value */
+    byte[] roomy = new byte[n * 10 + 1];
+    assertEquals(expected.size(), encodeAll(values, 1, n, roomy, 1));
+    assertEquals(Arrays.toString(exact), Arrays.toString(Arrays.copyOf(roomy, exact.length)));
+    long[] decoded = new long[n + 2];
+    assertEquals(expected.size(), decodeAll(exact, 1, decoded, 1, n));
+    assertEquals(Arrays.toString(values), Arrays.toString(decoded));
+  }
+
+  @Test
+  protected void batchException() {
+    long[] values = {1L, 1L << 20, Long.MIN_VALUE};
+    assertThrows(IllegalArgumentException.class, () -> encodeAll(values, 1, 3, new byte[32], 0));
+    assertThrows(IllegalArgumentException.class, () -> encodeAll(values, 0, 3, new byte[14], 0));
+    assertThrows(IllegalArgumentException.class, () -> encodeAll(values, 0, 3, new byte[8], 9));
+    byte[] bytes = new byte[15];
+    assertEquals(15, encodeAll(values, 0, 3, bytes, 0));
+    long[] decoded = new long[3];
+    assertThrows(IllegalArgumentException.class, () -> decodeAll(bytes, 0, decoded, 1, 3));
+    assertThrows(IllegalArgumentException.class, () -> decodeAll(bytes, 16, decoded, 0, 1));
+    byte[] truncated = Arrays.copyOf(bytes, 14);
+    assertThrows(IllegalArgumentException.class, () -> decodeAll(truncated, 0, decoded, 0, 3));
+    byte[] endless = {-1, -1};
+    assertThrows(IllegalArgumentException.class, () -> decodeAll(endless, 0, decoded, 0, 1));
+    byte[] overflow = {-1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+    assertThrows(IllegalArgumentException.class, () -> decodeAll(overflow, 0, decoded, 0, 1));
+    assertEquals(15, decodeAll(bytes, 0, decoded, 0, 3));
+    assertEquals(Arrays.toString(values), Arrays.toString(decoded));
+  }
+
+  /* Heap and direct buffers in both byte orders */
+  private static ByteBuffer[] buffers(int capacity) {
+    return new ByteBuffer[] {
+      ByteBuffer.allocate(capacity),
+      ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN),
+      ByteBuffer.allocateDirect(capacity),
+      ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN)
+    };
+  }
+
   @Test
   protected void encodeException() {
     final long value = random.nextLong();
@@ -151,6 +271,81 @@ class VarLengthInt64Test {
     assertThrows(IllegalArgumentException.class, () -> decodeStream(stream, 13));
   }
 
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 3, 9, 10})
+  protected void bulkStream(int peekLimit) throws IOException {
+    long[] values = new long[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextLong() >> random.nextInt(64);
+    }
+    BufferStream stream = new BufferStream(peekLimit);
+    for (long value : values) {
+      assertEquals(VarLengthInt64.sizeof(value), encode(value, stream));
+    }
+    assertEquals(0, stream.singleWrites);
+    for (long value : values) {
+      assertEquals(value, decode(stream));
+    }
+    assertEquals(0, stream.available());
+    if (peekLimit == 0) {
+      assertEquals(stream.length, stream.singleReads);
+    } else if (peekLimit >= 9) {
+      /* Only the 10-byte encodings are read one byte at a time */
+      assertTrue(stream.singleReads <= stream.length / 10);
+    }
+  }
+
+  @Test
+  protected void bulkDefaults() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    StreamWriter writer = out::write;
+    writer.write(new byte[] {1, 2, 3, 4}, 1, 2);
+    assertEquals("[2, 3]", Arrays.toString(out.toByteArray()));
+    assertThrows(IllegalArgumentException.class, () -> writer.write(new byte[2], 1, 2));
+    StreamReader reader = new ByteArrayInputStream(new byte[] {5, 6, 7})::read;
+    byte[] bytes = new byte[4];
+    assertEquals(0, reader.peek(bytes, 0, 4));
+    assertEquals(0, reader.available());
+    assertEquals(2, reader.read(bytes, 1, 2));
+    assertEquals(1, reader.read(bytes, 0, 4));
+    assertEquals("[7, 5, 6, 0]", Arrays.toString(bytes));
+    assertEquals(-1, reader.read(bytes, 0, 4));
+    assertEquals(0, reader.read(bytes, 0, 0));
+    assertThrows(IllegalArgumentException.class, () -> reader.read(bytes, -1, 2));
+  }
+
+  @Test
+  protected void streamDispatch() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    StreamWriter writer = out::write;
+    StreamReader reader = new ByteArrayInputStream(new byte[0])::read;
+    assertFalse(Streams.writesBulk(writer));
+    assertFalse(Streams.peeks(reader));
+    assertTrue(Streams.writesBulk(new BufferStream(0)));
+    assertTrue(Streams.peeks(new BufferStream(0)));
+    /* A bulk writer that encodes a length prefix from inside its own write call */
+    BufferStream inner = new BufferStream(0);
+    StreamWriter framing =
+        new StreamWriter() {
+          @Override
+          public void write(int b) {
+            inner.write(b);
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            encode(len, inner);
+            inner.write(b, off, len);
+          }
+        };
+    assertEquals(10, encode(Long.MIN_VALUE, framing));
+    assertEquals(1, encode(1L, framing));
+    assertEquals(10, decode(inner));
+    assertEquals(Long.MIN_VALUE, decode(inner));
+    assertEquals(1, decode(inner));
+    assertEquals(1L, decode(inner));
+  }
+
   private long decodeStream(InputStream stream, int offset) throws IOException {
     stream.reset();
     long skip = stream.skip(offset);
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static struqt.util.VarLengthUInt64.decode;
+import static struqt.util.VarLengthUInt64.encode;
+import static struqt.util.VarLengthUInt64.sizeof;
+
+class VarLengthUInt64Test {
+
+  private static final Random random = new SecureRandom();
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 7, 14, 21, 28, 35, 42, 49, 56, 63})
+  protected void thresholds(int bits) throws IOException {
+    for (long value : new long[] {(1L << bits) - 1L, 1L << bits, -1L >>> (64 - bits - 1)}) {
+      int size = sizeof(value);
+      assertEquals(Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7), size);
+      roundTrip(value, size);
+    }
+  }
+
+  @Test
+  protected void protobufVectors() throws IOException {
+    assertEncoding(0L, 0x00);
+    assertEncoding(1L, 0x01);
+    assertEncoding(127L, 0x7F);
+    assertEncoding(150L, 0x96, 0x01);
+    assertEncoding(300L, 0xAC, 0x02);
+    assertEncoding(16384L, 0x80, 0x80, 0x01);
+    assertEncoding(-1L, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01);
+    assertEncoding(Long.MIN_VALUE, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01);
+  }
+
+  @Test
+  protected void randomSequence() throws IOException {
+    long[] values = new long[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextLong() >>> random.nextInt(64);
+    }
+    for (long value : values) {
+      roundTrip(value, sizeof(value));
+    }
+  }
+
+  @Test
+  protected void bulkStream() throws IOException {
+    for (int peekLimit : new int[] {0, 3, 10}) {
+      BufferStream stream = new BufferStream(peekLimit);
+      long[] values = new long[200];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = random.nextLong() >>> random.nextInt(64);
+        assertEquals(sizeof(values[i]), encode(values[i], stream));
+        ZigZagInt64.encode(values[i], stream);
+      }
+      assertEquals(0, stream.singleWrites);
+      for (long value : values) {
+        assertEquals(value, decode(stream));
+        assertEquals(value, ZigZagInt64.decode(stream));
+      }
+      assertEquals(0, stream.available());
+      if (peekLimit == 10) {
+        assertEquals(0, stream.singleReads);
+      }
+    }
+  }
+
+  @Test
+  protected void decodeException() {
+    assertThrows(IllegalArgumentException.class, () -> decode(null, 0));
+    assertThrows(IllegalArgumentException.class, () -> decode(new byte[0]));
+    assertThrows(IllegalArgumentException.class, () -> decode(new byte[] {-128}));
+    assertThrows(IllegalArgumentException.class, () -> decode(new byte[] {0}, 1));
+    byte[] overflow = {-1, -1, -1, -1, -1, -1, -1, -1, -1, 2};
+    byte[] endless = {-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0};
+    for (byte[] source : new byte[][] {overflow, endless}) {
+      assertThrows(IllegalArgumentException.class, () -> decode(source));
+      assertThrows(IllegalArgumentException.class, () -> decode(ByteBuffer.wrap(source)));
+      assertThrows(
+          IllegalArgumentException.class, () -> decode(new ByteArrayInputStream(source)::read));
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] {-128, -128});
+    assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+    assertEquals(0, buffer.position());
+    buffer.position(2);
+    assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+    assertThrows(
+        IllegalArgumentException.class, () -> decode(new ByteArrayInputStream(new byte[0])::read));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> decode(new ByteArrayInputStream(new byte[] {-128})::read));
+  }
+
+  @Test
+  protected void encodeException() {
+    assertThrows(NullPointerException.class, () -> encode(1L, (byte[]) null));
+    assertThrows(IllegalArgumentException.class, () -> encode(1L, new byte[1], -1));
+    assertThrows(IllegalArgumentException.class, () -> encode(1L, new byte[1], 1));
+    assertThrows(IllegalArgumentException.class, () -> encode(128L, new byte[1]));
+    ByteBuffer buffer = ByteBuffer.allocate(9);
+    assertThrows(IllegalArgumentException.class, () -> encode(-1L, buffer));
+    assertEquals(0, buffer.position());
+  }
+
+  private static void assertEncoding(long value, int... expected) throws IOException {
+    byte[] bytes = new byte[expected.length];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) expected[i];
+    }
+    byte[] encoded = new byte[expected.length];
+    assertEquals(expected.length, encode(value, encoded));
+    assertEquals(Arrays.toString(bytes), Arrays.toString(encoded));
+    roundTrip(value, expected.length);
+  }
+
+  private static void roundTrip(long value, int size) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(size, encode(value, out::write));
+    byte[] bytes = out.toByteArray();
+    String expect = Arrays.toString(bytes);
+    byte[] encoded = new byte[size + 1];
+    assertEquals(size, encode(value, encoded, 1));
+    assertEquals(expect, Arrays.toString(Arrays.copyOfRange(encoded, 1, size + 1)));
+    assertEquals(value, decode(bytes));
+    assertEquals(value, decode(encoded, 1));
+    assertEquals(value, decode(new ByteArrayInputStream(bytes)::read));
+    ByteBuffer[] buffers = {
+      ByteBuffer.allocate(size + 8),
+      ByteBuffer.allocate(size + 8).order(ByteOrder.LITTLE_ENDIAN),
+      ByteBuffer.allocateDirect(size + 8),
+      ByteBuffer.allocateDirect(size + 8).order(ByteOrder.LITTLE_ENDIAN)
+    };
+    for (ByteBuffer buffer : buffers) {
+      /* Exact room goes through the byte loop, extra room through the word decoder */
+      for (int room : new int[] {size, size + 8}) {
+        buffer.clear().limit(room);
+        assertEquals(size, encode(value, buffer));
+        buffer.flip().limit(room);
+        assertEquals(value, decode(buffer));
+        assertEquals(size, buffer.position());
+        byte[] written = new byte[size];
+        buffer.position(0);
+        buffer.get(written);
+        assertEquals(expect, Arrays.toString(written));
+      }
+    }
+  }
+}
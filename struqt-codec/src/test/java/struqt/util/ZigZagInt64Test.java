@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018. Kang Wang. The following code is distributed under
+ * the terms of the MIT license found at http://opensource.org/licenses/MIT
+ */
+
+package struqt.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static struqt.util.ZigZagInt64.decode;
+import static struqt.util.ZigZagInt64.encode;
+import static struqt.util.ZigZagInt64.sizeof;
+import static struqt.util.ZigZagInt64.unzigzag;
+import static struqt.util.ZigZagInt64.zigzag;
+
+class ZigZagInt64Test {
+
+  @Test
+  protected void mapping() {
+    assertEquals(0L, zigzag(0L));
+    assertEquals(1L, zigzag(-1L));
+    assertEquals(2L, zigzag(1L));
+    assertEquals(3L, zigzag(-2L));
+    assertEquals(4294967294L, zigzag(Integer.MAX_VALUE));
+    assertEquals(4294967295L, zigzag(Integer.MIN_VALUE));
+    assertEquals(-2L, zigzag(Long.MAX_VALUE));
+    assertEquals(-1L, zigzag(Long.MIN_VALUE));
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      longs = {
+        0L,
+        1L,
+        -1L,
+        63L,
+        -64L,
+        64L,
+        -65L,
+        (1L << 13) - 1L,
+        -(1L << 13),
+        1L << 13,
+        Integer.MAX_VALUE,
+        Integer.MIN_VALUE,
+        (1L << 62) - 1L,
+        -(1L << 62),
+        1L << 62,
+        Long.MAX_VALUE,
+        Long.MIN_VALUE
+      })
+  protected void roundTrip(long value) throws IOException {
+    assertEquals(value, unzigzag(zigzag(value)));
+    int size = sizeof(value);
+    assertEquals(VarLengthUInt64.sizeof(zigzag(value)), size);
+    /* ZigZag maps the n-byte range of signed LEB128 onto the n-byte range of unsigned LEB128 */
+    assertEquals(VarLengthInt64.sizeof(value), size);
+    byte[] bytes = new byte[size];
+    assertEquals(size, encode(value, bytes));
+    assertEquals(value, decode(bytes));
+    byte[] shifted = new byte[size + 2];
+    assertEquals(size, encode(value, shifted, 2));
+    assertEquals(value, decode(shifted, 2));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(size, encode(value, out::write));
+    assertEquals(Arrays.toString(bytes), Arrays.toString(out.toByteArray()));
+    assertEquals(value, decode(new ByteArrayInputStream(bytes)::read));
+    ByteBuffer buffer = ByteBuffer.allocateDirect(size + 8);
+    assertEquals(size, encode(value, buffer));
+    buffer.flip();
+    assertEquals(value, decode(buffer));
+    assertEquals(size, buffer.position());
+  }
+}
@@ -7,8 +7,15 @@ package com.struqt.jmh;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.TimeValue;
 
@@ -16,98 +23,287 @@ import java.nio.charset.StandardCharsets;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Base 64 encoding and decoding benchmarks of {@code struqt.util.Base64} against {@code
+ * java.util.Base64}, over payload sizes from 16 bytes to 16 MiB, every input type and every
+ * alphabet. Each thread has its own payload, so the saturated runs share nothing but the code.
+ *
+ * <p>{@link #main} runs the suite twice with the GC profiler, which reports the bytes allocated
+ * per operation as {@code gc.alloc.rate.norm}: once on a single thread and once with a thread per
+ * processor. A single mode, size or alphabet is picked with the usual JMH options, for example
+ * {@code -t 1 -p size=32,128,512 -p alphabet=url -prof gc}.
+ *
+ * <p>Benchmark Test Results on a single thread with the basic alphabet, measured with the
+ * settings of {@link #main} and {@code -p size=32,512,1024 -p alphabet=basic}. The times are
+ * noisy on this machine, which has a single shared CPU, but the allocations are exact:
+ *
+ * <pre>
+ * # JMH version: 1.20
+ * # VM version: JDK 17.0.9, VM 17.0.9+9
+ * # VM options: none
+ * # Warmup: 5 iterations, 1 s each
+ * # Measurement: 5 iterations, 1 s each
+ * # Threads: 1 thread, will synchronize iterations
+ * # Benchmark mode: Average time, time/op
+ *
+ * Benchmark                         (size)  Mode  Cnt  Score   Error  Units
+ * MeasureBase64.decode                  32  avgt    5  0.117 ± 0.052  us/op
+ * MeasureBase64.decode                 512  avgt    5  0.953 ± 0.854  us/op
+ * MeasureBase64.decode                1024  avgt    5  2.508 ± 1.620  us/op
+ * MeasureBase64.decodeChars             32  avgt    5  0.092 ± 0.014  us/op
+ * MeasureBase64.decodeChars            512  avgt    5  1.238 ± 0.841  us/op
+ * MeasureBase64.decodeChars           1024  avgt    5  1.833 ± 0.523  us/op
+ * MeasureBase64.decodeCharsJava8        32  avgt    5  0.066 ± 0.007  us/op
+ * MeasureBase64.decodeCharsJava8       512  avgt    5  0.389 ± 0.134  us/op
+ * MeasureBase64.decodeCharsJava8      1024  avgt    5  0.753 ± 0.270  us/op
+ * MeasureBase64.decodeJava8             32  avgt    5  0.053 ± 0.052  us/op
+ * MeasureBase64.decodeJava8            512  avgt    5  0.083 ± 0.016  us/op
+ * MeasureBase64.decodeJava8           1024  avgt    5  0.182 ± 0.077  us/op
+ * MeasureBase64.decodeMime              32  avgt    5  0.130 ± 0.081  us/op
+ * MeasureBase64.decodeMime             512  avgt    5  1.104 ± 0.700  us/op
+ * MeasureBase64.decodeMime            1024  avgt    5  2.328 ± 1.622  us/op
+ * MeasureBase64.decodeMimeBytes         32  avgt    5  0.089 ± 0.076  us/op
+ * MeasureBase64.decodeMimeBytes        512  avgt    5  1.086 ± 0.851  us/op
+ * MeasureBase64.decodeMimeBytes       1024  avgt    5  2.036 ± 0.904  us/op
+ * MeasureBase64.decodeMixed             32  avgt    5  0.264 ± 0.207  us/op
+ * MeasureBase64.decodeMixed            512  avgt    5  3.137 ± 2.717  us/op
+ * MeasureBase64.decodeMixed           1024  avgt    5  5.788 ± 1.225  us/op
+ * MeasureBase64.decodeMixedJava8        32  avgt    5  0.229 ± 0.163  us/op
+ * MeasureBase64.decodeMixedJava8       512  avgt    5  0.662 ± 0.126  us/op
+ * MeasureBase64.decodeMixedJava8      1024  avgt    5  1.564 ± 0.576  us/op
+ * MeasureBase64.decodeString            32  avgt    5  0.101 ± 0.085  us/op
+ * MeasureBase64.decodeString           512  avgt    5  1.314 ± 0.657  us/op
+ * MeasureBase64.decodeString          1024  avgt    5  2.518 ± 1.571  us/op
+ * MeasureBase64.decodeStringJava8       32  avgt    5  0.098 ± 0.065  us/op
+ * MeasureBase64.decodeStringJava8      512  avgt    5  0.285 ± 0.082  us/op
+ * MeasureBase64.decodeStringJava8     1024  avgt    5  0.546 ± 0.174  us/op
+ * MeasureBase64.encode                  32  avgt    5  0.095 ± 0.052  us/op
+ * MeasureBase64.encode                 512  avgt    5  1.259 ± 0.561  us/op
+ * MeasureBase64.encode                1024  avgt    5  2.226 ± 0.617  us/op
+ * MeasureBase64.encodeJava8             32  avgt    5  0.074 ± 0.067  us/op
+ * MeasureBase64.encodeJava8            512  avgt    5  0.314 ± 0.087  us/op
+ * MeasureBase64.encodeJava8           1024  avgt    5  0.626 ± 0.259  us/op
+ * MeasureBase64.encodeToBytes           32  avgt    5  0.051 ± 0.051  us/op
+ * MeasureBase64.encodeToBytes          512  avgt    5  0.489 ± 0.283  us/op
+ * MeasureBase64.encodeToBytes         1024  avgt    5  0.917 ± 0.913  us/op
+ * MeasureBase64.encodeToBytesJava8      32  avgt    5  0.054 ± 0.060  us/op
+ * MeasureBase64.encodeToBytesJava8     512  avgt    5  0.066 ± 0.041  us/op
+ * MeasureBase64.encodeToBytesJava8    1024  avgt    5  0.068 ± 0.059  us/op
+ * MeasureBase64.encodeToChars           32  avgt    5  0.082 ± 0.045  us/op
+ * MeasureBase64.encodeToChars          512  avgt    5  1.078 ± 0.797  us/op
+ * MeasureBase64.encodeToChars         1024  avgt    5  1.817 ± 0.425  us/op
+ *
+ * Benchmark                         (size)  Mode  Cnt  gc.alloc.rate.norm
+ * MeasureBase64.decodeString            32  avgt    5    48.045   B/op
+ * MeasureBase64.decodeString           512  avgt    5   528.506   B/op
+ * MeasureBase64.decodeString          1024  avgt    5  1041.007   B/op
+ * MeasureBase64.decodeStringJava8       32  avgt    5   112.100   B/op
+ * MeasureBase64.decodeStringJava8      512  avgt    5  1233.082   B/op
+ * MeasureBase64.decodeStringJava8     1024  avgt    5  2426.126   B/op
+ * MeasureBase64.encodeToBytes           32  avgt    5       ≈ 0   B/op
+ * MeasureBase64.encodeToBytes          512  avgt    5       ≈ 0   B/op
+ * MeasureBase64.encodeToBytes         1024  avgt    5       ≈ 0   B/op
+ * MeasureBase64.encodeToBytesJava8      32  avgt    5       ≈ 0   B/op
+ * MeasureBase64.encodeToBytesJava8     512  avgt    5       ≈ 0   B/op
+ * MeasureBase64.encodeToBytesJava8    1024  avgt    5       ≈ 0   B/op
+ * </pre>
+ *
+ * <p>Decoding a String allocates nothing but the result, where {@code java.util.Base64} copies the
+ * String into a byte array first. {@code encodeToBytes} allocates nothing at any size.
+ * {@code java.util.Base64} runs on HotSpot intrinsics on this machine (AVX-512), which is why its
+ * byte array benchmarks are far ahead of any scalar code.
+ *
+ * <p>Decoding is slower than {@code java.util.Base64} at every measured size. At 512 bytes on
+ * Java 17, {@code decode} takes 0.953 us against 0.083 us for {@code decodeJava8}, about 11 times
+ * as long, and {@code decodeString} and {@code decodeMixed} take about 5 times as long as their
+ * {@code java.util.Base64} counterparts. On Java 21 with the Vector API kernels of the
+ * multi-release layer, the byte array gap shrinks to about 3 times, while Strings and char arrays
+ * have no vector kernel and stay about 5 times behind. Same settings, run with {@code
+ * -jvmArgsAppend "--add-modules jdk.incubator.vector"}, which {@link #main} adds on Java 21:
+ *
+ * <pre>
+ * # VM version: JDK 21.0.1, VM 21.0.1+12-LTS
+ * # VM options: --add-modules jdk.incubator.vector
+ *
+ * Benchmark                         (size)  Mode  Cnt  Score   Error  Units
+ * MeasureBase64.decode                  32  avgt    5  0.104 ± 0.041  us/op
+ * MeasureBase64.decode                 512  avgt    5  0.408 ± 0.140  us/op
+ * MeasureBase64.decode                1024  avgt    5  0.728 ± 0.487  us/op
+ * MeasureBase64.decodeJava8             32  avgt    5  0.038 ± 0.015  us/op
+ * MeasureBase64.decodeJava8            512  avgt    5  0.131 ± 0.059  us/op
+ * MeasureBase64.decodeJava8           1024  avgt    5  0.243 ± 0.075  us/op
+ * MeasureBase64.decodeString            32  avgt    5  0.123 ± 0.047  us/op
+ * MeasureBase64.decodeString           512  avgt    5  1.508 ± 0.084  us/op
+ * MeasureBase64.decodeString          1024  avgt    5  2.789 ± 0.796  us/op
+ * MeasureBase64.decodeStringJava8       32  avgt    5  0.056 ± 0.037  us/op
+ * MeasureBase64.decodeStringJava8      512  avgt    5  0.299 ± 0.161  us/op
+ * MeasureBase64.decodeStringJava8     1024  avgt    5  0.549 ± 0.138  us/op
+ * </pre>
+ */
+@State(Scope.Thread)
 public class MeasureBase64 {
 
-  private static final byte[] bytes = new byte[1024];
-  private static final String encoded;
-  private static final byte[] encodedBytes;
-  private static final String encodedUrlSafe;
-  private static final String encodedMime;
+  @Param({"16", "32", "64", "128", "256", "512", "1024", "4096", "65536", "1048576", "16777216"})
+  private int size;
 
-  static {
-    new Random().nextBytes(bytes);
-    encoded = java.util.Base64.getEncoder().encodeToString(bytes);
-    encodedUrlSafe = java.util.Base64.getUrlEncoder().encodeToString(bytes);
-    encodedMime = java.util.Base64.getMimeEncoder().encodeToString(bytes);
+  @Param({"basic", "url", "mime"})
+  private String alphabet;
+
+  private byte[] bytes;
+  private String encoded;
+  private byte[] encodedBytes;
+  private char[] encodedChars;
+  private String encodedMime;
+  private byte[] encodedMimeBytes;
+  private byte[] scratch;
+  private boolean url;
+  private boolean mime;
+  private struqt.util.Base64.Encoder encoder;
+  private java.util.Base64.Encoder encoderJava8;
+  private java.util.Base64.Decoder decoderJava8;
+
+  @Setup
+  public void setup() {
+    url = "url".equals(alphabet);
+    mime = "mime".equals(alphabet);
+    if (url) {
+      encoder = struqt.util.Base64.urlEncoder();
+      encoderJava8 = java.util.Base64.getUrlEncoder();
+      decoderJava8 = java.util.Base64.getUrlDecoder();
+    } else if (mime) {
+      encoder = struqt.util.Base64.mimeEncoder();
+      encoderJava8 = java.util.Base64.getMimeEncoder();
+      decoderJava8 = java.util.Base64.getMimeDecoder();
+    } else {
+      encoder = struqt.util.Base64.encoder();
+      encoderJava8 = java.util.Base64.getEncoder();
+      decoderJava8 = java.util.Base64.getDecoder();
+    }
+    bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    encoded = encoderJava8.encodeToString(bytes);
     encodedBytes = encoded.getBytes(StandardCharsets.US_ASCII);
+    encodedChars = encoded.toCharArray();
+    encodedMime = java.util.Base64.getMimeEncoder().encodeToString(bytes);
+    encodedMimeBytes = encodedMime.getBytes(StandardCharsets.US_ASCII);
+    scratch = new byte[encodedBytes.length];
   }
 
   // /*
 
   @Benchmark
-  public void decode() {
-    struqt.util.Base64.decode(encodedBytes);
+  public byte[] decode() {
+    return struqt.util.Base64.decode(encodedBytes);
+  }
+
+  @Benchmark
+  public byte[] decodeJava8() {
+    return decoderJava8.decode(encodedBytes);
   }
 
   @Benchmark
-  public void decodeJava8() {
-    java.util.Base64.getDecoder().decode(encodedBytes);
+  public byte[] decodeString() {
+    return struqt.util.Base64.decode(encoded);
   }
 
   @Benchmark
-  public void decodeUrlSafe() {
-    struqt.util.Base64.decode(encodedUrlSafe);
+  public byte[] decodeStringJava8() {
+    return decoderJava8.decode(encoded);
   }
 
   @Benchmark
-  public void decodeUrlSafeJava8() {
-    java.util.Base64.getMimeDecoder().decode(encodedUrlSafe);
+  public byte[] decodeChars() {
+    return struqt.util.Base64.decode(encodedChars);
   }
 
+  /* java.util.Base64 takes no char array, so the String it needs is part of the measurement */
   @Benchmark
-  public void decodeMime() {
-    struqt.util.Base64.decode(encodedMime);
+  public byte[] decodeCharsJava8() {
+    return decoderJava8.decode(new String(encodedChars));
   }
 
+  /* Decodes all three input types in one operation, so any shared call site sees all of them */
   @Benchmark
-  public void decodeMimeJava8() {
-    java.util.Base64.getMimeDecoder().decode(encodedMime);
+  public void decodeMixed(Blackhole bh) {
+    bh.consume(struqt.util.Base64.decode(encodedBytes));
+    bh.consume(struqt.util.Base64.decode(encodedChars));
+    bh.consume(struqt.util.Base64.decode(encoded));
   }
 
   @Benchmark
-  public void encode() {
-    struqt.util.Base64.encodeToString(bytes);
+  public void decodeMixedJava8(Blackhole bh) {
+    bh.consume(decoderJava8.decode(encodedBytes));
+    bh.consume(decoderJava8.decode(new String(encodedChars)));
+    bh.consume(decoderJava8.decode(encoded));
   }
 
+  /* RFC 2045 input whatever the alphabet, so a single alphabet is enough for these two */
   @Benchmark
-  public void encodeJava8() {
-    java.util.Base64.getEncoder().encodeToString(bytes);
+  public byte[] decodeMime() {
+    return struqt.util.Base64.decode(encodedMime);
   }
 
   @Benchmark
-  public void encodeUrlSafe() {
-    struqt.util.Base64.encodeToUrlSafe(bytes);
+  public byte[] decodeMimeBytes() {
+    return struqt.util.Base64.decode(encodedMimeBytes);
   }
 
   @Benchmark
-  public void encodeUrlSafeJava8() {
-    java.util.Base64.getUrlEncoder().encodeToString(bytes);
+  public String encode() {
+    return encoder.encodeToString(bytes);
   }
 
   @Benchmark
-  public void encodeMime() {
-    struqt.util.Base64.encodeToMime(bytes);
+  public String encodeJava8() {
+    return encoderJava8.encodeToString(bytes);
   }
 
   @Benchmark
-  public void encodeMimeJava8() {
-    java.util.Base64.getMimeEncoder().encodeToString(bytes);
+  public char[] encodeToChars() {
+    return struqt.util.Base64.encode(bytes, url, mime, true);
+  }
+
+  @Benchmark
+  public int encodeToBytes() {
+    return encoder.encode(bytes, 0, bytes.length, scratch, 0);
+  }
+
+  @Benchmark
+  public int encodeToBytesJava8() {
+    return encoderJava8.encode(bytes, scratch);
   }
 
   // */
 
+  /* Runs the suite on one thread and then on every processor, with allocation profiling */
   public static void main(String[] args) throws RunnerException {
-    new Runner(
-            new OptionsBuilder()
-                .include(MeasureBase64.class.getSimpleName())
-                .forks(1)
-                .threads(Runtime.getRuntime().availableProcessors())
-                .mode(Mode.AverageTime)
-                .measurementIterations(3)
-                .measurementTime(TimeValue.seconds(2))
-                .timeUnit(TimeUnit.MICROSECONDS)
-                .warmupIterations(5)
-                .build())
-        .run();
+    final int[] modes = {1, Runtime.getRuntime().availableProcessors()};
+    for (int threads : modes) {
+      ChainedOptionsBuilder options =
+          new OptionsBuilder()
+              .include(MeasureBase64.class.getSimpleName())
+              .addProfiler(GCProfiler.class)
+              .forks(1)
+              .threads(threads)
+              .mode(Mode.AverageTime)
+              .measurementIterations(5)
+              .measurementTime(TimeValue.seconds(1))
+              .timeUnit(TimeUnit.MICROSECONDS)
+              .warmupIterations(5)
+              .warmupTime(TimeValue.seconds(1));
+      if (vectorModule()) {
+        options.jvmArgsAppend("--add-modules", "jdk.incubator.vector");
+      }
+      if (args.length > 0) {
+        options.param("size", args);
+      }
+      new Runner(options.build()).run();
+    }
+  }
+
+  /* The forks need the incubator module to run the Vector API kernels of the Java 21 layer */
+  private static boolean vectorModule() {
+    final String version = System.getProperty("java.specification.version");
+    return !version.startsWith("1.") && Integer.parseInt(version) >= 21;
   }
 }